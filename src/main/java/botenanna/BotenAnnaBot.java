@@ -1,8 +1,11 @@
 package botenanna;
 
 import botenanna.behaviortree.BehaviorTree;
+import botenanna.behaviortree.intentions.Intention;
 import botenanna.game.ActionSet;
+import botenanna.game.DerivedFieldUsage;
 import botenanna.game.Situation;
+import botenanna.prediction.PlannerProfile;
 import rlbot.Bot;
 import rlbot.ControllerState;
 import rlbot.flat.GameTickPacket;
@@ -84,5 +87,8 @@ public class BotenAnnaBot implements Bot {
     @Override
     public void retire() {
         System.out.println("Retiring BotenAnna bot #" + playerIndex);
+        PlannerProfile.dumpAll(System.out);
+        System.out.println(Intention.getPlanCache());
+        System.out.println("Derived fields computed per tick: " + DerivedFieldUsage.getAverageSummary());
     }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package botenanna.behaviortree;
 
 import botenanna.game.Arena;
 import botenanna.game.Situation;
+import botenanna.intentions.PointFunction;
+import botenanna.math.Vector3;
+import botenanna.prediction.PlanningState;
 
 import java.util.function.Function;
 
@@ -47,4 +50,38 @@ public class ArgumentTranslator {
             default: throw new UnknownBTKeyException(key);
         }
     }
+
+    /** @return a Vector3 argument as a PointFunction, which planners can evaluate on every simulated state. By default
+     * the point is found again in every state, like {@link #get(String)} on the simulated Situation. The goal points
+     * are the same throughout a plan, so they are read from the situation the planning started from and do not
+     * depend on my car, see {@link PointFunction#dependsOnCar()}. */
+    public static PointFunction getPoint(String key) throws UnknownBTKeyException {
+        Function<Situation, Object> func = get(key);
+        switch (key) {
+
+            case "ball_pos": return PointFunction.ballPosition();
+
+            case "my_goal_pos":
+            case "enemy_goal_pos":
+            case "my_goal_line_pos":
+            case "enemy_goal_line_pos": return new PointFunction() {
+                @Override
+                public Vector3 apply(Situation situation) {
+                    return (Vector3) func.apply(situation);
+                }
+
+                @Override
+                public Vector3 apply(PlanningState state) {
+                    return (Vector3) func.apply(state.getOrigin());
+                }
+
+                @Override
+                public boolean dependsOnCar() {
+                    return false;
+                }
+            };
+
+            default: return (Situation a) -> (Vector3) func.apply(a);
+        }
+    }
 }
@@ -69,6 +69,11 @@ public class BehaviorTree implements Node {
         topNode = child;
     }
 
+    /** Returns the node that created the latest output, or null if the tree has not run yet. */
+    public Node getCurrentNode() {
+        return lastNodeStatus == null ? null : lastNodeStatus.creator;
+    }
+
     /** Returns the current node as a string. The string will be identical to the string from the behaviour tree
      * source file that the node was created from. */
     public String getCurrentNodeAsString() {
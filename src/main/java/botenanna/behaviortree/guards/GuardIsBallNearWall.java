@@ -9,6 +9,8 @@ import botenanna.math.Zone;
 
 public class GuardIsBallNearWall extends Leaf {
 
+    private static final Zone FIELD_ZONE = new Zone(new Vector3(-4080, -5080, 4060), new Vector3(4080, 5080, 0));
+
     /** checks if the ball is close to a wall by taking the x and y value and comparing it to the
      *  coordinates of the ball and returns true if the ball is within it field.
      *
@@ -28,9 +30,7 @@ public class GuardIsBallNearWall extends Leaf {
     @Override
     public NodeStatus run(Situation situation) throws MissingNodeException {
 
-        Zone fieldZone = new Zone(new Vector3(-4080, -5080, 4060), new Vector3(4080, 5080, 0));
-
-        if (fieldZone.contains(situation.getBall().getPosition())) {
+        if (FIELD_ZONE.contains(situation.getBall().getPosition())) {
             return NodeStatus.DEFAULT_SUCCESS;
         }
         return NodeStatus.DEFAULT_FAILURE;
@@ -1,14 +1,14 @@
 package botenanna.behaviortree.guards;
 
-import botenanna.game.Ball;
 import botenanna.behaviortree.ArgumentTranslator;
 import botenanna.behaviortree.Leaf;
 import botenanna.behaviortree.MissingNodeException;
 import botenanna.behaviortree.NodeStatus;
 import botenanna.game.Situation;
-import botenanna.math.Vector3;
 import botenanna.math.Zone;
-import botenanna.prediction.Physics;
+import botenanna.prediction.BallPathIntegrator.ContactType;
+import botenanna.prediction.BallZoneQueries;
+import botenanna.prediction.PiecewiseBallTrajectory;
 
 import java.util.function.Function;
 
@@ -16,8 +16,8 @@ public class GuardWillBallHitGoal extends Leaf {
 
     private Function<Situation, Object> areaFunc;
 
-    /** The guard GuardWillBallHitGoal checks if the path of the ball ends in the goal box using a simulation
-     * of where the ball is when it reaches the wall. The guard returns SUCCESS when the ball has a path that
+    /** The guard GuardWillBallHitGoal checks if the path of the ball ends in the goal box by looking up where
+     * the ball is in its trajectory when it bounces off the wall. The guard returns SUCCESS when the ball has a path that
      * ends in the given box area. (Goal box) and returns FAILURE if it will not.
      *
      * Its signature is: {@code GuardWillBallHitGoal <boxArea:Zone>}*/
@@ -37,19 +37,33 @@ public class GuardWillBallHitGoal extends Leaf {
     @Override
     public NodeStatus run(Situation situation) throws MissingNodeException {
 
+        PiecewiseBallTrajectory trajectory = situation.getBallTrajectory().getSegments();
+
         // Determine time it will take for ball to hit next Y-positive wall
-        double time = Physics.predictArrivalAtWallYPositive(situation.getBall(), Ball.RADIUS);
+        double time = timeOfNextYPositiveWallHit(trajectory);
 
-        // Find position when hitting wall
-        Vector3 destination = Physics.stepBall(situation.getBall(), time).getPosition();
+        // The ball does not hit that wall within the trajectory
+        if (Double.isNaN(time)) {
+            return NodeStatus.DEFAULT_FAILURE;
+        }
 
-        // Determine area
+        // Determine area and check if the ball is inside it when hitting wall
         Zone zone = (Zone) areaFunc.apply(situation);
 
-        if (zone.contains(destination)) {
+        if (BallZoneQueries.isInside(trajectory, zone, time)) {
             return NodeStatus.DEFAULT_SUCCESS;
         } else {
             return NodeStatus.DEFAULT_FAILURE;
         }
     }
+
+    /** @return the time of the first bounce off the Y-positive wall in the trajectory, or NaN if there is none. */
+    private static double timeOfNextYPositiveWallHit(PiecewiseBallTrajectory trajectory) {
+        for (int i = trajectory.getSegmentIndex(0) + 1; i < trajectory.getSegmentCount(); i++) {
+            if (trajectory.getSegmentContact(i) == ContactType.END_WALL && trajectory.getSegmentPosition(i).y > 0) {
+                return trajectory.getSegmentStartTime(i);
+            }
+        }
+        return Double.NaN;
+    }
 }
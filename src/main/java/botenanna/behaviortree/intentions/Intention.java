@@ -5,33 +5,182 @@ import botenanna.behaviortree.MissingNodeException;
 import botenanna.behaviortree.NodeStatus;
 import botenanna.behaviortree.Status;
 import botenanna.game.ActionSet;
+import botenanna.game.Car;
 import botenanna.game.Situation;
+import botenanna.math.RLMath;
+import botenanna.math.Vector3;
 import botenanna.prediction.AStar;
 import botenanna.intentions.IntentionFunction;
 import botenanna.math.TimeLine;
+import botenanna.prediction.MonteCarloTreeSearch;
+import botenanna.prediction.PlanCache;
+import botenanna.prediction.Planner;
+import botenanna.prediction.PlannerExecutor;
+import botenanna.prediction.PlannerProfile;
 
-import javax.swing.event.MouseInputListener;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-/** Intentions are nodes with no children. They use a intention function, the A*-algorithm, and simulation of the game to
- * find a sequence of ActionSets that will fulfil the intention. They return FAILURE when the method
- * {@link #shouldInterrupt(Situation)} returns true, and they return SUCCESS when the sequence is over. When there are
- * steps left in the sequence, they will return RUNNING with the evaluated ActionSet. */
+/** Intentions are nodes with no children. They use a intention function, a {@link Planner}, and simulation of the game
+ * to find a sequence of ActionSets that will fulfil the intention. They return FAILURE when the method
+ * {@link #shouldInterrupt(Situation)} returns true. Otherwise they return RUNNING with the evaluated ActionSet.
+ *
+ * <p>The planning happens in the background through the {@link PlannerExecutor}. While a plan is being made, the
+ * previous sequence is followed, or the {@link #getFallbackAction(Situation)} is used if there is none. A new plan is
+ * requested when the current sequence is about to run out. A plan that arrives after the game has diverged too far
+ * from the situation it was made for is discarded. A new plan is warm started from what is left of the current
+ * sequence, so the search only has to improve on it.</p>
+ *
+ * <p>The planning has a wall-clock budget in milliseconds, after which the best sequence found so far is used. The
+ * budget is {@link #getDefaultPlanningBudget()}, unless an extra trailing argument is given in the tree, e.g.
+ * {@code IntentionTouchBall 30}.</p>
+ *
+ * <p>The planner is {@link AStar} by default. Another planner can be chosen by its name as the very last argument in
+ * the tree, e.g. {@code IntentionDefendGoal 30 MCTS} or {@code IntentionDefendGoal MCTS}. The names are
+ * {@link #ASTAR} and {@link #MCTS}.</p>
+ *
+ * <p>Intentions that need to plan far ahead can hold each planned action for several steps, see
+ * {@link #getMacroSteps()}. Their plans are longer, so they are replanned less often.</p>
+ *
+ * <p>The stats of every planning are recorded in the {@link PlannerProfile} named after the class of the intention,
+ * see {@link #getPlannerProfile()}. Plannings answered by the plan cache are recorded as cache hits, and cancelled
+ * plannings are not recorded.</p>
+ *
+ * <p>Finished plans are remembered in a {@link PlanCache} shared by all intentions, so planning again from nearly the
+ * same situation is a lookup. Plans are shared between intentions with the same {@link #getPlanCacheKey(Situation)}.
+ * Plans that were cut short by the planning budget are not cached.</p> */
 public abstract class Intention extends Leaf {
 
     public static final double STEPSIZE = 0.05;
+    /** Planning time in milliseconds. Planning runs in the background, so it can take a few ticks. */
+    public static final double DEFAULT_PLANNING_BUDGET = 25;
+    /** A new plan is requested when the current sequence has less than this many seconds left. */
+    public static final double REPLAN_TIME = 0.1;
+    /** A plan is discarded if the car or the ball is further than this from where they were expected to be when the
+     * plan arrives. */
+    public static final double MAX_DIVERGENCE = 150;
+    /** The number of steps each planned action is held by default, see {@link AStar#setMacroSteps(int)}. */
+    public static final int DEFAULT_MACRO_STEPS = 1;
+    /** The system property that sets {@link #DEFAULT_PARALLEL_THRESHOLD}. */
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "botenanna.parallelThreshold";
+    /** {@link AStar} simulates the children of a node in parallel when it has at least this many, see
+     * {@link AStar#setParallelThreshold(int)}. It is off unless the system property {@link #PARALLEL_THRESHOLD_PROPERTY}
+     * is set, e.g. {@code gradlew run -Dbotenanna.parallelThreshold=16} on a machine with idle cores, since the
+     * planners of all bots already run in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = readParallelThreshold();
+    /** The name of the {@link AStar} planner in the tree. */
+    public static final String ASTAR = "AStar";
+    /** The name of the {@link MonteCarloTreeSearch} planner in the tree. */
+    public static final String MCTS = "MCTS";
 
+    private static final PlanCache planCache = new PlanCache();
+
+    /** The result of a planning job. The sequence starts at {@code startTime}. */
+    private static class Plan {
+        public final TimeLine<ActionSet> sequence;
+        public final Situation situation;
+        public final long startTime;
+        public final boolean deadlineHit;
+
+        public Plan(TimeLine<ActionSet> sequence, Situation situation, long startTime, boolean deadlineHit) {
+            this.sequence = sequence;
+            this.situation = situation;
+            this.startTime = startTime;
+            this.deadlineHit = deadlineHit;
+        }
+    }
+
+    private final Planner planner;
     private boolean isRunning = false;
     private IntentionFunction intentionFunction;
-    private TimeLine<ActionSet> sequence;
-    private LocalDateTime timer;
+    private Plan plan;
+    private Future<Plan> pendingPlan;
+    private ActionSet lastAction;
+    private final double planningBudget;
+    private boolean planningDeadlineHit = false;
 
     public Intention(String[] arguments) throws IllegalArgumentException {
         super(arguments);
 
-        if (!isValidNumberOfArguments(arguments.length)) throw new IllegalArgumentException();
+        int count = arguments.length;
+
+        // The very last argument may be the name of the planner
+        if (count > 0 && !isValidNumberOfArguments(count) && isPlannerName(arguments[count - 1])) {
+            planner = createPlanner(arguments[count - 1]);
+            count--;
+        } else {
+            planner = createPlanner(ASTAR);
+        }
+
+        if (isValidNumberOfArguments(count)) {
+            planningBudget = getDefaultPlanningBudget();
+        } else if (count > 0 && isValidNumberOfArguments(count - 1)) {
+            // The extra trailing argument is the planning budget
+            planningBudget = Double.parseDouble(arguments[count - 1]);
+            if (planningBudget <= 0) throw new IllegalArgumentException("Planning budget must be positive.");
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /** @return the parallel threshold given by the system property {@link #PARALLEL_THRESHOLD_PROPERTY}, or
+     * {@link Integer#MAX_VALUE} if it is not set. */
+    private static int readParallelThreshold() {
+        int threshold = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, Integer.MAX_VALUE);
+        if (threshold < 1) throw new IllegalArgumentException("Parallel threshold must be positive.");
+        return threshold;
+    }
+
+    private static boolean isPlannerName(String name) {
+        return ASTAR.equals(name) || MCTS.equals(name);
+    }
+
+    /** @return a new planner with the given name. */
+    private static Planner createPlanner(String name) {
+        switch (name) {
+            case ASTAR: return new AStar();
+            case MCTS: return new MonteCarloTreeSearch();
+            default: throw new IllegalArgumentException("Unknown planner \"" + name + "\".");
+        }
+    }
+
+    /** @return the planning budget in milliseconds used when none is given in the tree. Subclasses with harder
+     * intentions can override this. */
+    protected double getDefaultPlanningBudget() {
+        return DEFAULT_PLANNING_BUDGET;
+    }
+
+    /** @return the number of steps of {@link #STEPSIZE} each planned action is held. Subclasses with intentions that
+     * lie far ahead can override this. */
+    protected int getMacroSteps() {
+        return DEFAULT_MACRO_STEPS;
+    }
+
+    /** @return the number of children a node needs before {@link AStar} simulates them in parallel. Subclasses that
+     * plan alone on a machine with idle cores can override this. */
+    protected int getParallelThreshold() {
+        return DEFAULT_PARALLEL_THRESHOLD;
+    }
+
+    public double getPlanningBudget() {
+        return planningBudget;
+    }
+
+    public Planner getPlanner() {
+        return planner;
+    }
+
+    /** @return the profile where the stats of the plannings of this kind of intention are recorded. */
+    public PlannerProfile getPlannerProfile() {
+        return PlannerProfile.get(getClass().getSimpleName());
+    }
+
+    /** @return whether the latest planning ran out of time and used the best sequence found so far. */
+    public boolean isPlanningDeadlineHit() {
+        return planningDeadlineHit;
     }
 
     protected boolean isValidNumberOfArguments(int argumentCount) {
@@ -42,37 +191,164 @@ public abstract class Intention extends Leaf {
     public void reset() {
         isRunning = false;
         intentionFunction = null;
-        sequence = null;
+        plan = null;
+        lastAction = null;
+        if (pendingPlan != null) {
+            pendingPlan.cancel(true);
+            pendingPlan = null;
+        }
     }
 
     @Override
     public NodeStatus run(Situation input) throws MissingNodeException {
+        // Interrupted?
+        if (shouldInterrupt(input)) {
+            reset();
+            return NodeStatus.DEFAULT_FAILURE;
+        }
+
         if (!isRunning) {
             intentionFunction = getIntentionFunction(input);
-            sequence = AStar.findSequence(input, intentionFunction, STEPSIZE);
-            timer = LocalDateTime.now();
+            requestPlan(input);
             isRunning = true;
         }
 
-        // Interrupted?
-        if (shouldInterrupt(input)) {
-            isRunning = false;
-            return NodeStatus.DEFAULT_FAILURE;
+        // Has a new plan arrived?
+        if (pendingPlan != null && pendingPlan.isDone()) {
+            receivePlan(input);
         }
 
-        double secondsPassed = timer.until(LocalDateTime.now(), ChronoUnit.MILLIS) * 0.001;
+        if (plan != null) {
+            double secondsPassed = secondsSince(plan.startTime);
 
-        // Out of next steps?
-        if (sequence.getLastTime() < secondsPassed + STEPSIZE) {
-            // Start over
-            reset();
-            return run(input);
+            // Running out of next steps? Plan ahead
+            if (plan.sequence.getLastTime() < secondsPassed + STEPSIZE + REPLAN_TIME && pendingPlan == null) {
+                intentionFunction = getIntentionFunction(input);
+                requestPlan(input);
+            }
+
+            if (plan.sequence.getLastTime() >= secondsPassed + STEPSIZE) {
+                lastAction = plan.sequence.evaluate(secondsPassed);
+                return new NodeStatus(Status.RUNNING, lastAction, this);
+            }
+
+            plan = null;
+        }
+
+        // Waiting for a plan
+        if (pendingPlan == null) {
+            intentionFunction = getIntentionFunction(input);
+            requestPlan(input);
+        }
+        return new NodeStatus(Status.RUNNING, getFallbackAction(input), this);
+    }
+
+    /** Helper method that starts planning in the background from the given situation. */
+    private void requestPlan(Situation input) {
+        final IntentionFunction function = intentionFunction;
+        final long startTime = System.nanoTime();
+        final List<ActionSet> seed = getRemainingActions(startTime);
+        final int macroSteps = getMacroSteps();
+        final int parallelThreshold = getParallelThreshold();
+        final Object cacheKey = getPlanCacheKey(input);
+        pendingPlan = PlannerExecutor.submit(() -> {
+            if (cacheKey != null) {
+                TimeLine<ActionSet> cached = planCache.get(input, cacheKey, STEPSIZE);
+                if (cached != null) {
+                    PlannerProfile.recordCacheHit(getClass().getSimpleName());
+                    return new Plan(cached, input, startTime, false);
+                }
+            }
+
+            // A cancelled job may still be running. It stops soon, but the planner must not be used by both at once
+            synchronized (planner) {
+                planner.setMacroSteps(macroSteps);
+                if (planner instanceof AStar) ((AStar) planner).setParallelThreshold(parallelThreshold);
+                TimeLine<ActionSet> sequence = planner.plan(input, function, STEPSIZE, planningBudget, seed);
+                // A search cancelled by reset() is not a real search, so it is not recorded
+                if (!Thread.currentThread().isInterrupted()) {
+                    PlannerProfile.record(getClass().getSimpleName(), planner.getLastStats());
+                }
+                if (cacheKey != null && sequence != null && !planner.isDeadlineHit()) {
+                    planCache.put(input, cacheKey, STEPSIZE, sequence);
+                }
+                return new Plan(sequence, input, startTime, planner.isDeadlineHit());
+            }
+        });
+    }
+
+    /** Helper method that returns the actions left in the current sequence from the given time, one per step.
+     * @return the actions, or an empty list if there is no current sequence. */
+    private List<ActionSet> getRemainingActions(long nanoTime) {
+        List<ActionSet> actions = new ArrayList<>();
+        if (plan == null) return actions;
+
+        double lastTime = plan.sequence.getLastTime();
+        for (double time = (nanoTime - plan.startTime) * 1e-9; time <= lastTime; time += STEPSIZE) {
+            actions.add(plan.sequence.evaluate(time));
         }
+        return actions;
+    }
+
+    /** Helper method that takes the finished plan and uses it, unless it has diverged from the given situation. */
+    private void receivePlan(Situation input) {
+        Plan newPlan;
+        try {
+            newPlan = pendingPlan.get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            newPlan = null;
+        }
+        pendingPlan = null;
+
+        if (newPlan != null && newPlan.sequence != null && !newPlan.sequence.isEmpty() && !hasDiverged(newPlan, input)) {
+            plan = newPlan;
+            planningDeadlineHit = newPlan.deadlineHit;
+        }
+    }
+
+    /** @return whether the car or the ball is too far from where they were expected to be, compared to when the plan
+     * was started. The car is expected to keep its velocity. */
+    private static boolean hasDiverged(Plan plan, Situation input) {
+        double secondsPassed = secondsSince(plan.startTime);
+
+        Vector3 expectedCarPos = plan.situation.getMyCar().getPosition().plus(plan.situation.getMyCar().getVelocity().scale(secondsPassed));
+        if (expectedCarPos.getDistanceTo(input.getMyCar().getPosition()) > MAX_DIVERGENCE) return true;
+
+        Vector3 expectedBallPos = plan.situation.getBallTrajectory().getPosition(secondsPassed);
+        return expectedBallPos.getDistanceTo(input.getBall().getPosition()) > MAX_DIVERGENCE;
+    }
+
+    private static double secondsSince(long nanoTime) {
+        return (System.nanoTime() - nanoTime) * 1e-9;
+    }
+
+    /** @return the key plans of this intention are cached under, or null to never cache them. Intentions with equal
+     * keys share plans, so the key must identify everything the intention function depends on, except my car and the
+     * ball, which the {@link PlanCache} checks itself. By default it is the class, the arguments from the tree, and
+     * my player index, which decides the goals. */
+    protected Object getPlanCacheKey(Situation input) {
+        return getClass().getSimpleName() + " " + Arrays.toString(getArguments()) + " " + input.myPlayerIndex;
+    }
+
+    /** @return the plan cache shared by all intentions. */
+    public static PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /** @return the ActionSet used while waiting for a plan. The latest planned action is repeated, or the car drives
+     * towards the {@link #getFallbackTarget(Situation)} if there is none, e.g. before the first plan arrives. */
+    protected ActionSet getFallbackAction(Situation input) {
+        if (lastAction != null) return lastAction;
 
-        ActionSet action = sequence.evaluate(secondsPassed);
-        return new NodeStatus(Status.RUNNING, action, this);
+        Car myCar = input.getMyCar();
+        double ang = RLMath.carsAngleToPoint(myCar.getPosition().asVector2(), myCar.getRotation().yaw, getFallbackTarget(input).asVector2());
+        return new ActionSet().withThrottle(1).withSteer(RLMath.steeringSmooth(ang));
     }
 
+    /** @return the point the car drives towards while waiting for the first plan. Usually the destination of the
+     * intention. */
+    protected abstract Vector3 getFallbackTarget(Situation input);
     protected abstract IntentionFunction getIntentionFunction(Situation input);
     protected abstract boolean shouldInterrupt(Situation input);
 }
@@ -4,22 +4,40 @@ import botenanna.game.BoostPad;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.intentions.IntentionFunctionDriveOverPointWithAngle;
+import botenanna.intentions.PointFunction;
 import botenanna.math.Vector3;
 
 /** The IntentionCollectBoost will collect the best boost pad and continue towards the balls position.
- * Its signature is {@code "IntentionCollectBoost"}*/
+ * Its signature is {@code "IntentionCollectBoost [planningBudget:DOUBLE] [planner:STRING]"}*/
 public class IntentionCollectBoost extends Intention {
 
     /** The IntentionCollectBoost will collect the best boost pad and continue towards the balls position.
-     * Its signature is {@code "IntentionCollectBoost"}*/
+     * Its signature is {@code "IntentionCollectBoost [planningBudget:DOUBLE] [planner:STRING]"}*/
     public IntentionCollectBoost(String[] arguments) throws IllegalArgumentException {
         super(arguments);
     }
 
+    /** The destination is usually far away, so each action is held for 0.25 seconds and the plans cover a second. */
+    @Override
+    protected int getMacroSteps() {
+        return 5;
+    }
+
+    /** The best boost pad changes with the situation, so it is part of the key. */
+    @Override
+    protected Object getPlanCacheKey(Situation input) {
+        return super.getPlanCacheKey(input) + " " + input.getBestBoostPad().getPosition();
+    }
+
+    @Override
+    protected Vector3 getFallbackTarget(Situation input) {
+        return input.getBestBoostPad().getPosition();
+    }
+
     @Override
     protected IntentionFunction getIntentionFunction(Situation input) {
         final Vector3 bestPadPos = input.getBestBoostPad().getPosition(); // Not dynamic, since that will confuse the algorithms
-        return new IntentionFunctionDriveOverPointWithAngle(s -> bestPadPos, s -> s.getBall().getPosition(), 0.45, BoostPad.PAD_RADIUS, false);
+        return new IntentionFunctionDriveOverPointWithAngle(PointFunction.constant(bestPadPos), PointFunction.ballPosition(), 0.45, BoostPad.PAD_RADIUS, false);
     }
 
     @Override
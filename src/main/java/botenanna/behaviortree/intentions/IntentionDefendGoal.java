@@ -4,22 +4,34 @@ import botenanna.game.Arena;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.intentions.IntentionFunctionDriveOverPointWithAngle;
+import botenanna.intentions.PointFunction;
 import botenanna.math.Vector3;
 
 /** The IntentionDefendGoal is the intention to go to the agents own goal and look towards the middle of the field.
- * Its signature is {@code "IntentionDefendGoal"}*/
+ * Its signature is {@code "IntentionDefendGoal [planningBudget:DOUBLE] [planner:STRING]"}*/
 public class IntentionDefendGoal extends Intention {
 
     /** The IntentionDefendGoal is the intention to go to the agents own goal and look towards the middle of the field.
-     * Its signature is {@code "IntentionDefendGoal"}*/
+     * Its signature is {@code "IntentionDefendGoal [planningBudget:DOUBLE] [planner:STRING]"}*/
     public IntentionDefendGoal(String[] arguments) throws IllegalArgumentException {
         super(arguments);
     }
 
+    /** The destination is usually far away, so each action is held for 0.25 seconds and the plans cover a second. */
+    @Override
+    protected int getMacroSteps() {
+        return 5;
+    }
+
+    @Override
+    protected Vector3 getFallbackTarget(Situation input) {
+        return Arena.getGoalPos(input.myPlayerIndex);
+    }
+
     @Override
     protected IntentionFunction getIntentionFunction(Situation input) {
         final Vector3 goalPos = Arena.getGoalPos(input.myPlayerIndex);
-        return new IntentionFunctionDriveOverPointWithAngle(s -> goalPos, s -> new Vector3(), 0.30, 60, true);
+        return new IntentionFunctionDriveOverPointWithAngle(PointFunction.constant(goalPos), PointFunction.constant(new Vector3()), 0.30, 60, true);
     }
 
     @Override
@@ -5,26 +5,25 @@ import botenanna.game.Arena;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.intentions.IntentionFunctionDriveOverPointWithAngle;
+import botenanna.intentions.PointFunction;
 import botenanna.math.Vector3;
 
-import java.util.function.Function;
-
 /** The IntentionGoOverPoint is the intention to go to any point given as an argument. The agent will try to arrive with an
  * angle towards the enemy goal box, but nothing is guaranteed. Because of this intentions vague definition, the
  * performance of this node will be unreliable.
- * Its signature is {@code "IntentionGoOverPoint <point:Vector3>"}*/
+ * Its signature is {@code "IntentionGoOverPoint <point:Vector3> [planningBudget:DOUBLE] [planner:STRING]"}*/
 public class IntentionGoOverPoint extends Intention {
 
-    private Function<Situation, Object> pointFunc;
+    private PointFunction pointFunc;
 
     /** The IntentionGoOverPoint is the intention to go to any point given as an argument. The agent will try to arrive with an
      * angle towards the enemy goal box, but nothing is guaranteed. Because of this intentions vague definition, the
      * performance of this node will be unreliable.
-     * Its signature is {@code "IntentionGoOverPoint <point:Vector3>"}*/
+     * Its signature is {@code "IntentionGoOverPoint <point:Vector3> [planningBudget:DOUBLE] [planner:STRING]"}*/
     public IntentionGoOverPoint(String[] arguments) throws IllegalArgumentException {
         super(arguments);
 
-        pointFunc = ArgumentTranslator.get(arguments[0]);
+        pointFunc = ArgumentTranslator.getPoint(arguments[0]);
     }
 
     @Override
@@ -32,10 +31,21 @@ public class IntentionGoOverPoint extends Intention {
         return argumentCount == 1;
     }
 
+    /** The point is resolved from the situation, so it is part of the key. */
+    @Override
+    protected Object getPlanCacheKey(Situation input) {
+        return super.getPlanCacheKey(input) + " " + pointFunc.apply(input);
+    }
+
+    @Override
+    protected Vector3 getFallbackTarget(Situation input) {
+        return pointFunc.apply(input);
+    }
+
     @Override
     protected IntentionFunction getIntentionFunction(Situation input) {
         final Vector3 enemyGoal = Arena.getGoalPos(input.enemyPlayerIndex);
-        return new IntentionFunctionDriveOverPointWithAngle(s -> (Vector3) pointFunc.apply(s), s -> enemyGoal, 0.7, 30, false);
+        return new IntentionFunctionDriveOverPointWithAngle(pointFunc, PointFunction.constant(enemyGoal), 0.7, 30, false);
     }
 
     @Override
@@ -4,21 +4,28 @@ import botenanna.game.Arena;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.intentions.IntentionFunctionShootInDirection;
+import botenanna.intentions.PointFunction;
 import botenanna.math.Vector3;
 
 public class IntentionShootTowardsGoal extends Intention {
 
 
     /** The intention IntentionShootTowardsGoal will get the destination of the enemy goal
-     * and then shoot the ball towards that destination. */
+     * and then shoot the ball towards that destination.
+     * Its signature is {@code "IntentionShootTowardsGoal [planningBudget:DOUBLE] [planner:STRING]"}*/
     public IntentionShootTowardsGoal(String[] arguments) throws IllegalArgumentException {
         super(arguments);
     }
 
+    @Override
+    protected Vector3 getFallbackTarget(Situation input) {
+        return input.getBall().getPosition();
+    }
+
     @Override
     protected IntentionFunction getIntentionFunction(Situation input) {
         final Vector3 targetPoint = Arena.getGoalPos(input.enemyPlayerIndex);
-        return new IntentionFunctionShootInDirection(s -> targetPoint, 20, 20);
+        return new IntentionFunctionShootInDirection(PointFunction.constant(targetPoint), 20, 20);
     }
 
     @Override
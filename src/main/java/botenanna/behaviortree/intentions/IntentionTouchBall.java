@@ -4,24 +4,30 @@ import botenanna.game.Arena;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.intentions.IntentionFunctionDriveOverPointWithAngle;
+import botenanna.intentions.PointFunction;
 import botenanna.math.Vector3;
 
 /** The IntentionTouchBall is the intention to go to the ball's position. The agent will try to arrive with an
  * angle towards the enemy goal box, but nothing is guaranteed.
- * Its signature is {@code "IntentionTouchBall"}*/
+ * Its signature is {@code "IntentionTouchBall [planningBudget:DOUBLE] [planner:STRING]"}*/
 public class IntentionTouchBall extends Intention {
 
     /** The IntentionTouchBall is the intention to go to the ball's position. The agent will try to arrive with an
      * angle towards the enemy goal box, but nothing is guaranteed.
-     * Its signature is {@code "IntentionTouchBall"}*/
+     * Its signature is {@code "IntentionTouchBall [planningBudget:DOUBLE] [planner:STRING]"}*/
     public IntentionTouchBall(String[] arguments) throws IllegalArgumentException {
         super(arguments);
     }
 
+    @Override
+    protected Vector3 getFallbackTarget(Situation input) {
+        return input.getBall().getPosition();
+    }
+
     @Override
     protected IntentionFunction getIntentionFunction(Situation input) {
         final Vector3 enemyGoal = Arena.getGoalPos(input.enemyPlayerIndex);
-        return new IntentionFunctionDriveOverPointWithAngle(s -> s.getBall().getPosition(), s -> enemyGoal, 0.7, 20, false);
+        return new IntentionFunctionDriveOverPointWithAngle(PointFunction.ballPosition(), PointFunction.constant(enemyGoal), 0.7, 20, false);
     }
 
     @Override
@@ -7,8 +7,8 @@ import botenanna.game.Car;
 import botenanna.game.Situation;
 import botenanna.math.RLMath;
 import botenanna.math.Vector3;
+import botenanna.prediction.BallTrajectory;
 import botenanna.prediction.Estimates;
-import botenanna.prediction.Physics;
 
 public class TaskGoTowardsBall extends Leaf {
 
@@ -50,8 +50,9 @@ public class TaskGoTowardsBall extends Leaf {
         Vector3 myRotation = input.getMyCar().getRotation();
         double velocity = input.getMyCar().getVelocity().getMagnitude();
 
-        double time = Estimates.timeTillCarCanHitBall(myPos, input.getBall(), speed);
-        Vector3 point = Physics.stepBall(input.getBall().clone(), time).getPosition();
+        BallTrajectory ballTrajectory = input.getBallTrajectory();
+        double time = Estimates.timeTillCarCanHitBall(myPos, ballTrajectory, speed);
+        Vector3 point = ballTrajectory.getPosition(time);
         point = point.plus(point.minus(Arena.getGoalPos(input.enemyPlayerIndex)).getNormalized().scale(40)); // Bias
 
         double ang = RLMath.carsAngleToPoint(myPos.asVector2(), myRotation.yaw, point.asVector2());
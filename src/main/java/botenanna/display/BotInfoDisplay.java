@@ -3,6 +3,8 @@ package botenanna.display;
 import botenanna.BotenAnnaBot;
 import botenanna.BotenAnnaWindow;
 import botenanna.behaviortree.BehaviorTree;
+import botenanna.behaviortree.Node;
+import botenanna.behaviortree.intentions.Intention;
 import botenanna.game.Situation;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
@@ -45,10 +47,22 @@ public class BotInfoDisplay extends InfoDisplay {
         infoLabel.setText(String.format(
                 "Pos: %s\n" +
                 "Possession: %b\n" +
-                "Executing: %s",
+                "Executing: %s\n" +
+                "Planning: %s\n" +
+                "Plan cache: %.0f%% hits",
                 input.getMyCar().getPosition().toStringFixedSize(),
                 input.hasPossession(input.myPlayerIndex),
-                bot.getBehaviorTree().getCurrentNodeAsString()));
+                bot.getBehaviorTree().getCurrentNodeAsString(),
+                getPlanningInfo(),
+                Intention.getPlanCache().getHitRate() * 100));
+    }
+
+    /** @return a summary of the planning stats of the current intention, or "-" if the current node is not an
+     * intention. */
+    private String getPlanningInfo() {
+        Node node = bot.getBehaviorTree().getCurrentNode();
+        if (!(node instanceof Intention)) return "-";
+        return ((Intention) node).getPlannerProfile().toShortString();
     }
 
     /** Change the behaviour tree of the bot connected to this display. */
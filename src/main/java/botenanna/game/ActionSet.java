@@ -5,6 +5,8 @@ import botenanna.ControlsOutput;
 
 /**
  * A data class describing the outputs of an agent. This class can be translated into a ControllerState.
+ * An ActionSet can be frozen, after which it cannot be changed. Frozen ActionSets can be shared safely, like those of
+ * the planner's {@code ActionCatalog}.
  */
 public class ActionSet {
 
@@ -22,69 +24,96 @@ public class ActionSet {
     private boolean boostDepressed = false;
     private boolean slideDepressed = false;
 
+    private boolean frozen = false;
+
     public ActionSet() {
     }
 
     /** Set steering/turning. 0 is straight, -1 is hard left, 1 is hard right. Clamped between -1 and 1. Default it 0. */
     public ActionSet withSteer(double steeringTilt) {
+        checkNotFrozen();
         this.steeringTilt = Math.max(-1, Math.min(1, steeringTilt));
         return this;
     }
 
     /** Set pitch. -1 for front flip, 1 for back flip. Clamped between -1 and 1. Default is 0. */
     public ActionSet withPitch(double pitchTilt) {
+        checkNotFrozen();
         this.pitchTilt = Math.max(-1, Math.min(1, pitchTilt));
         return this;
     }
 
     /** Set roll. -1 for left roll, 1 for right roll, Clamped between -1 and 1. Default is 0. */
     public ActionSet withRoll(double rollTilt) {
+        checkNotFrozen();
         this.rollTilt = Math.max(-1, Math.min(1, rollTilt));
         return this;
     }
 
     /** Set throttle. 0 is none, 1 is forwards, -1 is backwards. Clamped between -1 and 1. Default is 0. */
     public ActionSet withThrottle(double throttle) {
+        checkNotFrozen();
         this.throttle = Math.max(-1, Math.min(1, throttle));
         return this;
     }
 
     /** Set jump pressed output. Default is false. */
     public ActionSet withJump(boolean jumpDepressed) {
+        checkNotFrozen();
         this.jumpDepressed = jumpDepressed;
         return this;
     }
 
     /** Set boost pressed output. Default is false. */
     public ActionSet withBoost(boolean boostDepressed) {
+        checkNotFrozen();
         this.boostDepressed = boostDepressed;
         return this;
     }
 
     /** Set slide pressed output. Default is false. */
     public ActionSet withSlide(boolean slideDepressed) {
+        checkNotFrozen();
         this.slideDepressed = slideDepressed;
         return this;
     }
 
     /** Set jump pressed output to true. */
     public ActionSet withJump() {
+        checkNotFrozen();
         this.jumpDepressed = true;
         return this;
     }
 
     /** Set boost pressed output to true. */
     public ActionSet withBoost() {
+        checkNotFrozen();
         this.boostDepressed = true;
         return this;
     }
 
     /** Set slide pressed output to true. */
     public ActionSet withSlide() {
+        checkNotFrozen();
         this.slideDepressed = true;
         return this;
     }
 
+    /** Prevent any further changes to this ActionSet.
+     * @return this ActionSet. */
+    public ActionSet freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /** Helper method that throws an IllegalStateException if this ActionSet is frozen. */
+    private void checkNotFrozen() {
+        if (frozen) throw new IllegalStateException("ActionSet is frozen.");
+    }
 
     /**
      * Compare two Actionss.
@@ -12,6 +12,8 @@ public class Ball {
     public static final double SLIDE_DECCELERATION = -230;
     public static final double BALL_GROUND_BOUNCINESS = -0.6;
     public static final double BALL_WALL_BOUNCINESS = -0.6;
+    /** Bounces off the ground with a smaller vertical velocity than this makes the ball roll instead. */
+    public static final double MIN_BOUNCE_VELOCITY = 20;
 
     /** Create a ball from the GameData's BallInfo. This way position, velocity,
      * acceleration, rotation and gravity is set immediately. */
@@ -2,14 +2,63 @@ package botenanna.game;
 
 import botenanna.math.RLMath;
 import botenanna.math.Vector3;
+import botenanna.prediction.BallTrajectory;
 import botenanna.prediction.Estimates;
-import botenanna.prediction.Physics;
 import botenanna.prediction.Rigidbody;
 import rlbot.flat.GameTickPacket;
 import rlbot.flat.PlayerInfo;
 
 public class Car extends Rigidbody {
 
+    /** The variables that depend on the ball. They are computed from the car's position and yaw at the moment they
+     * were set, but not until they are needed, and then remembered. Clones of a car share them, so they are computed
+     * at most once no matter how many times the car is cloned. */
+    private static class BallDependentVariables {
+        private final BallTrajectory ballTrajectory;
+        private final Vector3 position;
+        private final double yaw;
+
+        private boolean hasDistanceAndAngle = false;
+        private double distanceToBall;
+        private double angleToBall;
+
+        private boolean hasReachBall = false;
+        private double reachBallTimeFullSpeed;
+        private double reachBallTimeNormalSpeed;
+        private Vector3 reachBallPosFullSpeed;
+        private Vector3 reachBallPosNormalSpeed;
+
+        public BallDependentVariables(BallTrajectory ballTrajectory, Vector3 position, double yaw) {
+            this.ballTrajectory = ballTrajectory;
+            this.position = position;
+            this.yaw = yaw;
+        }
+
+        public synchronized void decideDistanceAndAngle() {
+            if (hasDistanceAndAngle) return;
+            DerivedFieldUsage.computed(DerivedFieldUsage.Field.CAR_BALL_DISTANCE);
+            hasDistanceAndAngle = true;
+            Vector3 ballPosition = ballTrajectory.getPosition(0);
+            angleToBall = RLMath.carsAngleToPoint(position.asVector2(), yaw, ballPosition.asVector2());
+            distanceToBall = position.getDistanceTo(ballPosition);
+        }
+
+        public synchronized void decideReachBall() {
+            if (hasReachBall) return;
+            DerivedFieldUsage.computed(DerivedFieldUsage.Field.CAR_REACH_BALL);
+            hasReachBall = true;
+
+            // Both estimates are found in one pass over the ball's path
+            double[] reachBallTimes = Estimates.timesTillCarCanHitBall(position, ballTrajectory.getSegments(), 1, 0.63);
+
+            reachBallTimeFullSpeed = reachBallTimes[0];
+            reachBallPosFullSpeed = ballTrajectory.getPosition(reachBallTimeFullSpeed);
+
+            reachBallTimeNormalSpeed = reachBallTimes[1];
+            reachBallPosNormalSpeed = ballTrajectory.getPosition(reachBallTimeNormalSpeed);
+        }
+    }
+
     // Global Variables
     public final static double ACCELERATION_BOOST = 650;
     public final static double ACCELERATION = 400;
@@ -41,15 +90,11 @@ public class Car extends Rigidbody {
     private boolean isCarUpsideDown;
     private boolean isNearWall;
 
-    private double distanceToBall;
-    private double angleToBall;
-    private double reachBallTimeFullSpeed;
-    private double reachBallTimeNormalSpeed;
-    private Vector3 reachBallPosFullSpeed;
-    private Vector3 reachBallPosNormalSpeed;
+    private BallDependentVariables ballDependent = null;
 
-    /** Constructor for a car in rocket league with data from the game packet. */
-    public Car(int index, GameTickPacket packet) {
+    /** Constructor for a car in rocket league with data from the game packet. The ball dependent variables are
+     * found using the given prediction of the ball. */
+    public Car(int index, GameTickPacket packet, BallTrajectory ballTrajectory) {
 
         playerIndex = index;
         PlayerInfo info = packet.players(index);
@@ -66,7 +111,7 @@ public class Car extends Rigidbody {
         isDemolished = info.isDemolished();
         isSupersonic = info.isSupersonic();
         isMidAir = false; // TODO packet.getPlayers(index).getIsMidair() equivalent does not exist
-        setBallDependentVariables(Ball.get(packet.ball()));
+        setBallDependentVariables(ballTrajectory);
 
         isNearWall = !Arena.getFieldWithWallOffset(28).contains(getPosition());
     }
@@ -89,12 +134,7 @@ public class Car extends Rigidbody {
         isSupersonic = oldCar.isSupersonic;
         isMidAir = oldCar.isMidAir;
 
-        distanceToBall = oldCar.distanceToBall;
-        angleToBall = oldCar.angleToBall;
-        reachBallTimeFullSpeed = oldCar.reachBallTimeFullSpeed;
-        reachBallPosFullSpeed = oldCar.reachBallPosFullSpeed;
-        reachBallTimeNormalSpeed = oldCar.reachBallTimeNormalSpeed;
-        reachBallPosNormalSpeed = oldCar.reachBallPosNormalSpeed;
+        ballDependent = oldCar.ballDependent;
 
         isNearWall = !Arena.getFieldWithWallOffset(28).contains(getPosition());
     }
@@ -147,18 +187,11 @@ public class Car extends Rigidbody {
         super.setAngularVelocity(angularVelocity);
     }
 
-    public void setBallDependentVariables(Rigidbody ball) {
-        Vector3 ballPosition = ball.getPosition();
-        angleToBall = RLMath.carsAngleToPoint(getPosition().asVector2(),  getRotation().yaw, ballPosition.asVector2());
-        distanceToBall = getPosition().getDistanceTo(ballPosition);
-
-        Rigidbody ballClone = ball.clone();
-        reachBallTimeFullSpeed = Estimates.timeTillCarCanHitBall(getPosition(), ball, 1);
-        reachBallPosFullSpeed = Physics.stepBall(ballClone, reachBallTimeFullSpeed).getPosition();
-
-        ballClone.set(ball);
-        reachBallTimeNormalSpeed = Estimates.timeTillCarCanHitBall(getPosition(), ball, 0.63);
-        reachBallPosNormalSpeed = Physics.stepBall(ballClone, reachBallTimeNormalSpeed).getPosition();
+    /** Update the variables that depend on the ball. The ball's future is looked up in the trajectory, which starts
+     * at the current moment. The variables use the car's current position and yaw, but are not computed until they
+     * are needed. */
+    public void setBallDependentVariables(BallTrajectory ballTrajectory) {
+        ballDependent = new BallDependentVariables(ballTrajectory, getPosition(), getRotation().yaw);
     }
 
     public void setBoost(int amount) {
@@ -227,11 +260,15 @@ public class Car extends Rigidbody {
     }
 
     public double getDistanceToBall() {
-        return distanceToBall;
+        if (ballDependent == null) return 0;
+        ballDependent.decideDistanceAndAngle();
+        return ballDependent.distanceToBall;
     }
 
     public double getAngleToBall() {
-        return angleToBall;
+        if (ballDependent == null) return 0;
+        ballDependent.decideDistanceAndAngle();
+        return ballDependent.angleToBall;
     }
 
     public void setIsMidAir(boolean midAir) {
@@ -243,18 +280,26 @@ public class Car extends Rigidbody {
     }
 
     public double getReachBallTimeFullSpeed() {
-        return reachBallTimeFullSpeed;
+        if (ballDependent == null) return 0;
+        ballDependent.decideReachBall();
+        return ballDependent.reachBallTimeFullSpeed;
     }
 
     public double getReachBallTimeNormalSpeed() {
-        return reachBallTimeNormalSpeed;
+        if (ballDependent == null) return 0;
+        ballDependent.decideReachBall();
+        return ballDependent.reachBallTimeNormalSpeed;
     }
 
     public Vector3 getReachBallPosFullSpeed() {
-        return reachBallPosFullSpeed;
+        if (ballDependent == null) return null;
+        ballDependent.decideReachBall();
+        return ballDependent.reachBallPosFullSpeed;
     }
 
     public Vector3 getReachBallPosNormalSpeed() {
-        return reachBallPosNormalSpeed;
+        if (ballDependent == null) return null;
+        ballDependent.decideReachBall();
+        return ballDependent.reachBallPosNormalSpeed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package botenanna.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** <p>DerivedFieldUsage counts how often the derived fields of {@link Situation}s and {@link Car}s are computed. The
+ * derived fields are computed on first access, so the counts show which of them the behaviour tree and the planners
+ * actually use.</p>
+ *
+ * <p>A tick starts when a Situation is created from a GameTickPacket with a new game time. Bots in the same process
+ * see the same game time, so a tick is counted once and holds the computations of all bots. The counts of the latest
+ * finished tick and the totals of all finished ticks are kept. The counters are thread safe.</p> */
+public class DerivedFieldUsage {
+
+    public enum Field {
+        /** {@link Situation#getBallLandingTime()} and {@link Situation#getBallLandingPosition()}. */
+        BALL_LANDING,
+        /** {@link Situation#hasPossession(int)}. */
+        POSSESSION,
+        /** {@link Situation#getAimPosition()}. */
+        AIM_POSITION,
+        /** {@link Situation#getBestBoostPad()}. */
+        BEST_BOOST_PAD,
+        /** {@link Car#getDistanceToBall()} and {@link Car#getAngleToBall()}. */
+        CAR_BALL_DISTANCE,
+        /** The times and positions where a {@link Car} can reach the ball. */
+        CAR_REACH_BALL
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final AtomicLongArray currentTick = new AtomicLongArray(FIELDS.length);
+    private static final AtomicLongArray lastTick = new AtomicLongArray(FIELDS.length);
+    private static final AtomicLongArray totals = new AtomicLongArray(FIELDS.length);
+    private static volatile long tickCount = 0;
+    private static double tickGameTime = Double.NaN;
+
+    /** Count that a derived field was computed. */
+    static void computed(Field field) {
+        currentTick.incrementAndGet(field.ordinal());
+    }
+
+    /** End the current tick and start a new one, unless the game time is the same as the current tick's.
+     * @param gameTime the elapsed game time in seconds, e.g. {@code packet.gameInfo().secondsElapsed()}. */
+    static synchronized void nextTick(double gameTime) {
+        if (gameTime == tickGameTime) return;
+        tickGameTime = gameTime;
+
+        for (int i = 0; i < FIELDS.length; i++) {
+            long count = currentTick.getAndSet(i, 0);
+            lastTick.set(i, count);
+            totals.addAndGet(i, count);
+        }
+        tickCount++;
+    }
+
+    /** @return how many times the field was computed during the latest finished tick. */
+    public static long getLastTickCount(Field field) {
+        return lastTick.get(field.ordinal());
+    }
+
+    /** @return how many times the field was computed during all finished ticks. */
+    public static long getTotalCount(Field field) {
+        return totals.get(field.ordinal());
+    }
+
+    /** @return the number of finished ticks. */
+    public static long getTickCount() {
+        return tickCount;
+    }
+
+    /** @return the counts of the latest finished tick, e.g. "BALL_LANDING 1, POSSESSION 0, ...". */
+    public static String getLastTickSummary() {
+        StringBuilder builder = new StringBuilder();
+        for (Field field : FIELDS) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(field).append(' ').append(getLastTickCount(field));
+        }
+        return builder.toString();
+    }
+
+    /** @return the average count per tick of every field, over all finished ticks. */
+    public static String getAverageSummary() {
+        long ticks = tickCount;
+        StringBuilder builder = new StringBuilder();
+        for (Field field : FIELDS) {
+            if (builder.length() > 0) builder.append(", ");
+            double average = ticks == 0 ? 0 : (double) getTotalCount(field) / ticks;
+            builder.append(field).append(' ').append(String.format("%.2f", average));
+        }
+        return builder.toString();
+    }
+}
@@ -4,6 +4,8 @@ import botenanna.math.RLMath;
 import botenanna.math.Vector2;
 import botenanna.math.Vector3;
 import botenanna.math.Zone;
+import botenanna.prediction.BallPredictionCache;
+import botenanna.prediction.BallTrajectory;
 import botenanna.prediction.Rigidbody;
 import botenanna.prediction.Physics;
 import rlbot.cppinterop.RLBotDll;
@@ -16,10 +18,15 @@ import rlbot.manager.BotLoopRenderer;
 import java.io.IOException;
 
 /** The Situation is a data class that represents a situation in the game, partly constructed from the
- * GameTickPacket and our own calculations. */
+ * GameTickPacket and our own calculations. The fields derived from our own calculations, like the ball's landing,
+ * possession and the aim position, are computed the first time they are needed and then remembered. How often each
+ * of them is computed is counted by {@link DerivedFieldUsage}. */
 public class Situation {
 
     public static FieldInfo fieldInfo;
+    /** Shared between all Situations so the ball's path is only predicted again when the ball did something
+     * unexpected. */
+    private static final BallPredictionCache ballPredictionCache = new BallPredictionCache();
 
     public final int myPlayerIndex;
     public final int enemyPlayerIndex;
@@ -28,9 +35,11 @@ public class Situation {
     private final Car enemyCar;
 
     private final Rigidbody ball;
-    private final double ballLandingTime;
-    private final Vector3 ballLandingPosition;
-    private Vector3 aimPosition;
+    private final BallTrajectory ballTrajectory;
+    private boolean hasBallLanding = false;
+    private double ballLandingTime;
+    private Vector3 ballLandingPosition;
+    private Vector3 aimPosition = null;
 
     private final boolean isKickOffPause;
     private final boolean isMatchOver;
@@ -42,31 +51,26 @@ public class Situation {
     private GameTickPacket packet;
 
     private BoostPad bestBoostPad = null;
+    private boolean hasPossessionDecided = false;
     private double myPossessionUtility = 0;
     private double enemyPossessionUtility = 0;
     private boolean enemyHasPossession;
 
     /** Create a Situation from GameTickPacket. */
     public Situation(GameTickPacket packet, int playerIndex) {
+        DerivedFieldUsage.nextTick(packet.gameInfo().secondsElapsed());
         this.packet = packet;
         this.boostPads = constructBoostpadArray(packet);
 
+        // Ball. The trajectory is taken from the cache and everything else looks the ball up in it
+        this.ball = Ball.get(packet.ball());
+        this.ballTrajectory = ballPredictionCache.get(ball, packet.gameInfo().secondsElapsed());
+
         // Cars
         myPlayerIndex = playerIndex;
-        myCar = new Car(myPlayerIndex, packet);
+        myCar = new Car(myPlayerIndex, packet, ballTrajectory);
         enemyPlayerIndex = this.myPlayerIndex == 1 ? 0 : 1;
-        enemyCar = new Car(enemyPlayerIndex, packet);
-
-        // Ball
-        this.ball = Ball.get(packet.ball());
-        double landingTime = Physics.predictArrivalAtHeight(ball, Ball.RADIUS, true);
-        if (Double.isNaN(landingTime)) {
-            this.ballLandingTime = 0;
-            this.ballLandingPosition = ball.getPosition();
-        } else {
-            this.ballLandingTime = landingTime;
-            this.ballLandingPosition = Physics.stepBody(ball.clone(), ballLandingTime, true).getPosition();
-        }
+        enemyCar = new Car(enemyPlayerIndex, packet, ballTrajectory);
 
         // Game
         this.isKickOffPause = packet.gameInfo().isKickoffPause();
@@ -74,39 +78,25 @@ public class Situation {
         this.isOvertime = packet.gameInfo().isOvertime();
         this.isRoundActive = packet.gameInfo().isRoundActive();
         this.gamePlayerCount = packet.playersLength();
-
-        decidePossession();
-        decideAimPosition();
     }
 
-    /** Create Situation by providing the pieces. */
-    public Situation(Car car, Car enemyCar, Rigidbody ball, BoostPad[] boostPads) {
+    /** Create Situation by providing the pieces. The {@code ballTrajectory} must start at the same moment as this
+     * Situation, see {@link BallTrajectory#shift(double)}. */
+    public Situation(Car car, Car enemyCar, Rigidbody ball, BallTrajectory ballTrajectory, BoostPad[] boostPads) {
         this.myPlayerIndex = car.getPlayerIndex();
         this.enemyPlayerIndex = enemyCar.getPlayerIndex();
         this.myCar = car;
         this.enemyCar = enemyCar;
         this.ball = ball;
+        this.ballTrajectory = ballTrajectory;
         this.boostPads = boostPads;
 
-        // Ball landing
-        double landingTime = Physics.predictArrivalAtHeight(ball, Ball.RADIUS, true);
-        if (Double.isNaN(landingTime)) {
-            this.ballLandingTime = 0;
-            this.ballLandingPosition = ball.getPosition();
-        } else {
-            this.ballLandingTime = landingTime;
-            this.ballLandingPosition = Physics.stepBody(ball.clone(), ballLandingTime, true).getPosition();
-        }
-
         // TODO Currently no way to determine if we have entered a new phase
         this.isKickOffPause = false;
         this.isMatchOver = false;
         this.isOvertime = false;
         this.isRoundActive = true;
         this.gamePlayerCount = 2;
-
-        decidePossession();
-        decideAimPosition();
     }
 
     /** Construct an array of boost pads from the packet's list of BoostpadInfo. */
@@ -137,11 +127,12 @@ public class Situation {
 
     /** Used to get the best boostpad based on utility theory.
      * @return the best boostpad for myCar. */
-    public BoostPad getBestBoostPad() {
+    public synchronized BoostPad getBestBoostPad() {
         // Already calculated?
         if (bestBoostPad != null) {
             return bestBoostPad;
         }
+        DerivedFieldUsage.computed(DerivedFieldUsage.Field.BEST_BOOST_PAD);
 
         double bestBoostUtility = 0;
         BoostPad bestPad = null;
@@ -174,7 +165,11 @@ public class Situation {
         return bestBoostPad;
     }
 
-    private void decidePossession() {
+    /** Finds out which car has possession of the ball, unless it is already known. */
+    private synchronized void decidePossession() {
+        if (hasPossessionDecided) return;
+        DerivedFieldUsage.computed(DerivedFieldUsage.Field.POSSESSION);
+        hasPossessionDecided = true;
         myPossessionUtility = possessionUtility(myCar);
         enemyPossessionUtility = possessionUtility(enemyCar);
         enemyHasPossession = myPossessionUtility < enemyPossessionUtility;
@@ -182,6 +177,7 @@ public class Situation {
 
     /** Returns true if car of playerIndex has ball possession. */
     public boolean hasPossession(int playerIndex){
+        decidePossession();
         if (playerIndex == myPlayerIndex) {
             return !enemyHasPossession;
         } else {
@@ -209,8 +205,10 @@ public class Situation {
     }
 
     /** Finds the aim position, which is ideal to go towards if the car wants to shoot,
-     * but ins't positioned correctly. */
-    private void decideAimPosition() {
+     * but ins't positioned correctly. Nothing is done if it is already known. */
+    private synchronized void decideAimPosition() {
+        if (aimPosition != null) return;
+        DerivedFieldUsage.computed(DerivedFieldUsage.Field.AIM_POSITION);
         Vector3 ballPosFlat = ball.getPosition().withZ(0);
         Vector3 goalToBall = ballPosFlat.minus(Arena.getGoalLinePos(enemyPlayerIndex));
         double offset = ball.getPosition().z;
@@ -297,15 +295,43 @@ public class Situation {
         return ball.clone();
     }
 
+    /** @return the predicted trajectory of the ball, starting at the moment of this Situation. */
+    public BallTrajectory getBallTrajectory() {
+        return ballTrajectory;
+    }
+
+    /** @return the cache that provides the ball's trajectory for Situations created from a GameTickPacket. */
+    public static BallPredictionCache getBallPredictionCache() {
+        return ballPredictionCache;
+    }
+
+    /** Finds when and where the ball lands, unless it is already known. */
+    private synchronized void decideBallLanding() {
+        if (hasBallLanding) return;
+        DerivedFieldUsage.computed(DerivedFieldUsage.Field.BALL_LANDING);
+        hasBallLanding = true;
+        double landingTime = Physics.predictArrivalAtHeight(ball, Ball.RADIUS, true);
+        if (Double.isNaN(landingTime)) {
+            ballLandingTime = 0;
+            ballLandingPosition = ball.getPosition();
+        } else {
+            ballLandingTime = landingTime;
+            ballLandingPosition = ballTrajectory.getPosition(ballLandingTime);
+        }
+    }
+
     public double getBallLandingTime() {
+        decideBallLanding();
         return ballLandingTime;
     }
 
     public Vector3 getBallLandingPosition() {
+        decideBallLanding();
         return new Vector3(ballLandingPosition);
     }
 
     public Vector3 getAimPosition() {
+        decideAimPosition();
         return aimPosition;
     }
 
@@ -1,6 +1,8 @@
 package botenanna.intentions;
 
 import botenanna.game.Situation;
+import botenanna.prediction.PlanningBatch;
+import botenanna.prediction.PlanningState;
 
 public interface IntentionFunction {
 
@@ -9,4 +11,27 @@ public interface IntentionFunction {
 
     /** Checks if the deviations are fulfilled. */
     boolean isDeviationFulfilled(Situation situation, double timeSpent);
+
+    /** Used by planners to calculate the intention value of a PlanningState. The time spent is the time of the state.
+     * By default a Situation is created from the state, which is expensive, so implementations should read the state
+     * directly when they can. */
+    default double compute(PlanningState state) {
+        return compute(state.toSituation(), state.time);
+    }
+
+    /** Used by planners to calculate the intention values of all states of a batch in one call. By default each state
+     * is computed on its own, so implementations should loop over the arrays of the batch directly when they can. The
+     * values must be the same as those of {@link #compute(PlanningState)}.
+     * @param values where the value of the i'th state is stored. Must be at least as long as the batch. */
+    default void compute(PlanningBatch batch, double[] values) {
+        for (int i = 0; i < batch.size(); i++) {
+            values[i] = compute(batch.getState(i));
+        }
+    }
+
+    /** Used by planners to check if the deviations are fulfilled in a PlanningState. By default a Situation is created
+     * from the state, which is expensive, so implementations should read the state directly when they can. */
+    default boolean isDeviationFulfilled(PlanningState state) {
+        return isDeviationFulfilled(state.toSituation(), state.time);
+    }
 }
@@ -2,25 +2,25 @@ package botenanna.intentions;
 
 import botenanna.game.Situation;
 import botenanna.math.Vector3;
-
-import java.util.function.Function;
+import botenanna.prediction.PlanningBatch;
+import botenanna.prediction.PlanningState;
 
 /** This class is used when you want a intention value for "Arrive at a point at a specific time. */
 public class IntentionFunctionArriveAtPointAtTime implements IntentionFunction {
 
-    private final double DIST_SCALE = 1/450d;
-    private final double VEL_SCALE = 1/1500d;
+    private static final double DIST_SCALE = 1/450d;
+    private static final double VEL_SCALE = 1/1500d;
 
     private double distDeviation;
     private double velDeviation;
-    private Function<Situation, Vector3> pointFunc;
+    private PointFunction pointFunc;
     private double arrivalTime;
 
     /** @param pointFunc the destination point.
      *  @param arrivalTime the desired time of arrival. Cannot be 0 or negative.
      *  @param distDeviation the deviation in distance to desired point.
      *  @param velDeviation the deviation in velocity. */
-    public IntentionFunctionArriveAtPointAtTime(Function<Situation, Vector3> pointFunc, double arrivalTime, double distDeviation, double velDeviation) {
+    public IntentionFunctionArriveAtPointAtTime(PointFunction pointFunc, double arrivalTime, double distDeviation, double velDeviation) {
         this.distDeviation = distDeviation;
         this.velDeviation = velDeviation;
         this.pointFunc = pointFunc;
@@ -39,16 +39,55 @@ public class IntentionFunctionArriveAtPointAtTime implements IntentionFunction {
         return calculateWork(pointFunc.apply(situation), situation.getMyCar().getPosition(), situation.getMyCar().getVelocity(), timeSpent);
     }
 
+    /**	Takes a PlanningState and returns a intention value of that state, like
+     *  {@link #compute(Situation, double)} without creating a Situation.
+     *  @param state the state to be evaluated.
+     *  @return an intention value for the given state. */
+    @Override
+    public double compute(PlanningState state) {
+        Vector3 point = pointFunc.apply(state);
+        return calculateWork(point.x, point.y, point.z, state.px, state.py, state.pz, state.vx, state.vy, state.vz,
+                state.time, arrivalTime);
+    }
+
+    /**	Takes a batch of PlanningStates and stores the intention value of each, like {@link #compute(PlanningState)}
+     *  with the same results, but reading the arrays of the batch in one loop.
+     *  @param batch the states to be evaluated.
+     *  @param values where the intention values are stored. */
+    @Override
+    public void compute(PlanningBatch batch, double[] values) {
+        Vector3 point = null;
+        for (int i = 0; i < batch.size(); i++) {
+            // Points that do not depend on the car are the same for all states at the same time
+            boolean newTime = i == 0 || batch.time[i] != batch.time[i - 1];
+            if (newTime || pointFunc.dependsOnCar()) point = pointFunc.apply(batch.getState(i));
+
+            values[i] = calculateWork(point.x, point.y, point.z, batch.px[i], batch.py[i], batch.pz[i],
+                    batch.vx[i], batch.vy[i], batch.vz[i], batch.time[i], arrivalTime);
+        }
+    }
+
     /** Takes the needed information and calculates the intention value.
      * @param myPosition my cars position.
      * @param myVelocity my cars velocity.
      * @param timeSpent the seconds used since origin of the situation.
      * @return an intention value for the given situation. */
     double calculateWork(Vector3 point, Vector3 myPosition, Vector3 myVelocity, double timeSpent){
+        return calculateWork(point.x, point.y, point.z, myPosition.x, myPosition.y, myPosition.z,
+                myVelocity.x, myVelocity.y, myVelocity.z, timeSpent, arrivalTime);
+    }
+
+    /** Helper function that calculates the intention value from the components of the vectors, so every compute
+     *  method gives the same value without creating vectors. */
+    private static double calculateWork(double pointX, double pointY, double pointZ, double px, double py, double pz,
+            double vx, double vy, double vz, double timeSpent, double arrivalTime) {
 
         //Calculate function variables
-        double distToPoint = myPosition.getDistanceTo(point); // Distance
-        double velocity = myVelocity.getMagnitude(); // Velocity
+        double dx = px - pointX;
+        double dy = py - pointY;
+        double dz = pz - pointZ;
+        double distToPoint = Math.sqrt(dx * dx + dy * dy + dz * dz); // Distance
+        double velocity = Math.sqrt(vx * vx + vy * vy + vz * vz); // Velocity
         double timeValue = (arrivalTime <= timeSpent) ? -(timeSpent/arrivalTime) + 2 : timeSpent / arrivalTime;
 
         return (distToPoint*DIST_SCALE - velocity*VEL_SCALE) * timeValue;
@@ -67,4 +106,14 @@ public class IntentionFunctionArriveAtPointAtTime implements IntentionFunction {
 
         return distToPoint <= distDeviation && velocity <= velDeviation;
     }
+
+    /** Checks if the deviations are fulfilled, like {@link #isDeviationFulfilled(Situation, double)} without creating
+     *  a Situation.
+     *  @param state the state to be evaluated.
+     *  @return true if the variables are less or equal to the deviation. */
+    @Override
+    public boolean isDeviationFulfilled(PlanningState state) {
+        double distToPoint = state.getPosition().getDistanceTo(pointFunc.apply(state));
+        return distToPoint <= distDeviation && state.getSpeed() <= velDeviation;
+    }
 }
@@ -3,20 +3,20 @@ package botenanna.intentions;
 import botenanna.game.Car;
 import botenanna.game.Situation;
 import botenanna.math.Vector3;
-
-import java.util.function.Function;
+import botenanna.prediction.PlanningBatch;
+import botenanna.prediction.PlanningState;
 
 /** This class is used when you want an intention value for "Drive over a point with a specific angle". */
 public class IntentionFunctionDriveOverPointWithAngle implements IntentionFunction {
 
-    private final double DIST_SCALE = 1/450d;
-    private final double ANGLE_SCALE = 1/128d;
-    private final double VEL_SCALE = 1/1500d;
+    private static final double DIST_SCALE = 1/450d;
+    private static final double ANGLE_SCALE = 1/128d;
+    private static final double VEL_SCALE = 1/1500d;
 
     private double angleDeviation;
     private double distDeviation;
-    private Function<Situation, Vector3> destinationPointFunc;
-    private Function<Situation, Vector3> nextPointFunc;
+    private PointFunction destinationPointFunc;
+    private PointFunction nextPointFunc;
     private boolean stopOnPoint;
 
     /** @param destinationPointFunc the destination point.
@@ -24,8 +24,8 @@ public class IntentionFunctionDriveOverPointWithAngle implements IntentionFuncti
      *  @param angleDeviation an value that the angle is allowed to deviate.
      *  @param distDeviation an value that the distance is allowed to deviate.
      *  @param stopOnPoint should the car stop on the point or drive over. */
-    public IntentionFunctionDriveOverPointWithAngle(Function<Situation, Vector3> destinationPointFunc, Function<Situation,
-            Vector3> nextPointFunc, double angleDeviation, double distDeviation, boolean stopOnPoint) {
+    public IntentionFunctionDriveOverPointWithAngle(PointFunction destinationPointFunc, PointFunction nextPointFunc,
+            double angleDeviation, double distDeviation, boolean stopOnPoint) {
 
         this.destinationPointFunc = destinationPointFunc;
         this.nextPointFunc = nextPointFunc;
@@ -47,17 +47,68 @@ public class IntentionFunctionDriveOverPointWithAngle implements IntentionFuncti
                 myCar.getPosition(), myCar.getFrontVector(), timeSpent, myCar.getVelocity());
     }
 
+    /**	Takes a PlanningState and returns an intention value of that state, like
+     *  {@link #compute(Situation, double)} without creating a Situation.
+     *  @param state the state to be evaluated.
+     *  @return an intention value for the given state. */
+    @Override
+    public double compute(PlanningState state) {
+        Vector3 dest = destinationPointFunc.apply(state);
+        Vector3 next = nextPointFunc.apply(state);
+        return calculateWork(dest.x, dest.y, dest.z, next.x, next.y, next.z, state.px, state.py, state.pz,
+                state.fx, state.fy, state.fz, state.vx, state.vy, state.vz, state.time, stopOnPoint);
+    }
+
+    /**	Takes a batch of PlanningStates and stores the intention value of each, like {@link #compute(PlanningState)}
+     *  with the same results, but reading the arrays of the batch in one loop.
+     *  @param batch the states to be evaluated.
+     *  @param values where the intention values are stored. */
+    @Override
+    public void compute(PlanningBatch batch, double[] values) {
+        Vector3 dest = null;
+        Vector3 next = null;
+        for (int i = 0; i < batch.size(); i++) {
+            // Points that do not depend on the car are the same for all states at the same time
+            boolean newTime = i == 0 || batch.time[i] != batch.time[i - 1];
+            if (newTime || destinationPointFunc.dependsOnCar()) dest = destinationPointFunc.apply(batch.getState(i));
+            if (newTime || nextPointFunc.dependsOnCar()) next = nextPointFunc.apply(batch.getState(i));
+
+            values[i] = calculateWork(dest.x, dest.y, dest.z, next.x, next.y, next.z, batch.px[i], batch.py[i], batch.pz[i],
+                    batch.fx[i], batch.fy[i], batch.fz[i], batch.vx[i], batch.vy[i], batch.vz[i], batch.time[i], stopOnPoint);
+        }
+    }
+
     /**	Takes the needed information and calculates the intention value.
      *  @param myPosition my cars position.
      *  @param myDirection my cars direction.
      *  @param timeSpent the seconds used since origin of the situation.
      *  @return an intention value for the given situation. */
     double calculateWork(Vector3 dest, Vector3 next, Vector3 myPosition, Vector3 myDirection, double timeSpent, Vector3 carVelocity){
+        return calculateWork(dest.x, dest.y, dest.z, next.x, next.y, next.z, myPosition.x, myPosition.y, myPosition.z,
+                myDirection.x, myDirection.y, myDirection.z, carVelocity.x, carVelocity.y, carVelocity.z, timeSpent, stopOnPoint);
+    }
+
+    /** Helper function that calculates the intention value from the components of the vectors, so every compute
+     *  method gives the same value without creating vectors. */
+    private static double calculateWork(double destX, double destY, double destZ, double nextX, double nextY, double nextZ,
+            double px, double py, double pz, double fx, double fy, double fz, double vx, double vy, double vz,
+            double timeSpent, boolean stopOnPoint) {
+
+        double dx = px - destX;
+        double dy = py - destY;
+        double dz = pz - destZ;
+        double distanceToPoint = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+        // Angle between the front vector and the desired direction
+        double desiredX = nextX - destX;
+        double desiredY = nextY - destY;
+        double desiredZ = nextZ - destZ;
+        double dot = fx * desiredX + fy * desiredY + fz * desiredZ;
+        double frontLength = Math.sqrt(fx * fx + fy * fy + fz * fz);
+        double desiredLength = Math.sqrt(desiredX * desiredX + desiredY * desiredY + desiredZ * desiredZ);
+        double angleDifference = Math.acos(dot / (frontLength * desiredLength));
 
-        double distanceToPoint = myPosition.getDistanceTo(dest);
-        Vector3 desiredDirectionVector = next.minus(dest);
-        double angleDifference = myDirection.getAngleTo(desiredDirectionVector);
-        double velocity = carVelocity.getMagnitude();
+        double velocity = Math.sqrt(vx * vx + vy * vy + vz * vz);
 
         // Avoid divide by zero error
         if (velocity == 0)
@@ -88,4 +139,15 @@ public class IntentionFunctionDriveOverPointWithAngle implements IntentionFuncti
 
         return distToPoint <= distDeviation && angToPoint <= angleDeviation;
     }
+
+    /** Checks if the deviations are fulfilled, like {@link #isDeviationFulfilled(Situation, double)} without creating
+     *  a Situation.
+     *  @param state the state to be evaluated.
+     *  @return true if the variables are less or equal to the deviation. */
+    @Override
+    public boolean isDeviationFulfilled(PlanningState state) {
+        Vector3 myPos = state.getPosition();
+        Vector3 dest = destinationPointFunc.apply(state);
+        return myPos.getDistanceTo(dest) <= distDeviation && myPos.getAngleTo(dest) <= angleDeviation;
+    }
 }
@@ -3,23 +3,23 @@ package botenanna.intentions;
 import botenanna.game.Car;
 import botenanna.game.Situation;
 import botenanna.math.Vector3;
-
-import java.util.function.Function;
+import botenanna.prediction.PlanningBatch;
+import botenanna.prediction.PlanningState;
 
 /** This class is used when you want an intention value for "Shoot in direction". */
 public class IntentionFunctionShootInDirection implements IntentionFunction {
 
-    private final double ANGLE_SCALE = 1/128d;
-    private final double DIST_SCALE = 1/450d;
+    private static final double ANGLE_SCALE = 1/128d;
+    private static final double DIST_SCALE = 1/450d;
 
-    private Function<Situation, Vector3> targetPointFunc;
+    private PointFunction targetPointFunc;
     private double angleDeviation;
     private double distDeviation;
 
     /** @param targetPointFunc the point to shoot towards
      *  @param angleDeviation an value that the angle is allowed to deviate.
      *  @param distDeviation an value that the distance is allowed to deviate. */
-    public IntentionFunctionShootInDirection(Function<Situation, Vector3> targetPointFunc, double angleDeviation, double distDeviation){
+    public IntentionFunctionShootInDirection(PointFunction targetPointFunc, double angleDeviation, double distDeviation){
         this.targetPointFunc = targetPointFunc;
         this.angleDeviation = angleDeviation;
         this.distDeviation = distDeviation;
@@ -37,6 +37,43 @@ public class IntentionFunctionShootInDirection implements IntentionFunction {
                 situation.getBall().getVelocity(), situation.getMyCar().getPosition(), situation.getMyCar().getVelocity(), timeSpent);
     }
 
+    /**	Takes a PlanningState and returns an intention value of that state, like
+     *  {@link #compute(Situation, double)} without creating a Situation.
+     *  @param state the state to be evaluated.
+     *  @return an intention value for the given state. */
+    @Override
+    public double compute(PlanningState state) {
+        Vector3 targetPoint = targetPointFunc.apply(state);
+        Vector3 ballLocation = state.getBallPosition();
+        Vector3 ballVelocity = state.getBallVelocity();
+        return calculateWork(targetPoint.x, targetPoint.y, targetPoint.z, ballLocation.x, ballLocation.y, ballLocation.z,
+                ballVelocity.x, ballVelocity.y, ballVelocity.z, state.px, state.py, state.pz, state.vx, state.vy, state.vz, state.time);
+    }
+
+    /**	Takes a batch of PlanningStates and stores the intention value of each, like {@link #compute(PlanningState)}
+     *  with the same results, but reading the arrays of the batch in one loop.
+     *  @param batch the states to be evaluated.
+     *  @param values where the intention values are stored. */
+    @Override
+    public void compute(PlanningBatch batch, double[] values) {
+        Vector3 targetPoint = null;
+        Vector3 ballLocation = null;
+        Vector3 ballVelocity = null;
+        for (int i = 0; i < batch.size(); i++) {
+            // The ball, and points that do not depend on the car, are the same for all states at the same time
+            boolean newTime = i == 0 || batch.time[i] != batch.time[i - 1];
+            if (newTime || targetPointFunc.dependsOnCar()) targetPoint = targetPointFunc.apply(batch.getState(i));
+            if (newTime) {
+                ballLocation = batch.getBallPosition(i);
+                ballVelocity = batch.getBallVelocity(i);
+            }
+
+            values[i] = calculateWork(targetPoint.x, targetPoint.y, targetPoint.z, ballLocation.x, ballLocation.y, ballLocation.z,
+                    ballVelocity.x, ballVelocity.y, ballVelocity.z, batch.px[i], batch.py[i], batch.pz[i],
+                    batch.vx[i], batch.vy[i], batch.vz[i], batch.time[i]);
+        }
+    }
+
     /** Takes the needed information and calculates the intention value.
      *  @param ballLocation ball location
      *  @param ballVelocity ball velocity
@@ -45,14 +82,36 @@ public class IntentionFunctionShootInDirection implements IntentionFunction {
      *  @param timeSpent the seconds used since origin of the situation.
      *  @return an intention value for the given situation. */
     double calculateWork(Vector3 targetPoint, Vector3 ballLocation, Vector3 ballVelocity, Vector3 carLocation, Vector3 carVelocity, double timeSpent){
+        return calculateWork(targetPoint.x, targetPoint.y, targetPoint.z, ballLocation.x, ballLocation.y, ballLocation.z,
+                ballVelocity.x, ballVelocity.y, ballVelocity.z, carLocation.x, carLocation.y, carLocation.z,
+                carVelocity.x, carVelocity.y, carVelocity.z, timeSpent);
+    }
 
-        Vector3 desiredShotDirection = targetPoint.minus(carLocation); //From car to desiredPoint
-        Vector3 currentShotDirection = ballVelocity.plus(carVelocity);
-
-        double distanceToBall = ballLocation.getDistanceTo(carLocation);
-        double angleDiffernce = desiredShotDirection.getAngleTo(currentShotDirection);
-
-        return timeSpent + distanceToBall*DIST_SCALE + angleDiffernce*ANGLE_SCALE;
+    /** Helper function that calculates the intention value from the components of the vectors, so every compute
+     *  method gives the same value without creating vectors. */
+    private static double calculateWork(double targetX, double targetY, double targetZ, double ballX, double ballY, double ballZ,
+            double ballVelX, double ballVelY, double ballVelZ, double px, double py, double pz, double vx, double vy, double vz,
+            double timeSpent) {
+
+        // From car to desired point
+        double desiredX = targetX - px;
+        double desiredY = targetY - py;
+        double desiredZ = targetZ - pz;
+        double currentX = ballVelX + vx;
+        double currentY = ballVelY + vy;
+        double currentZ = ballVelZ + vz;
+
+        double bx = ballX - px;
+        double by = ballY - py;
+        double bz = ballZ - pz;
+        double distanceToBall = Math.sqrt(bx * bx + by * by + bz * bz);
+
+        double dot = desiredX * currentX + desiredY * currentY + desiredZ * currentZ;
+        double desiredLength = Math.sqrt(desiredX * desiredX + desiredY * desiredY + desiredZ * desiredZ);
+        double currentLength = Math.sqrt(currentX * currentX + currentY * currentY + currentZ * currentZ);
+        double angleDifference = Math.acos(dot / (desiredLength * currentLength));
+
+        return timeSpent + distanceToBall*DIST_SCALE + angleDifference*ANGLE_SCALE;
     }
 
     /** Checks if the deviations are fulfilled.
@@ -74,4 +133,24 @@ public class IntentionFunctionShootInDirection implements IntentionFunction {
 
         return distToBall <= distDeviation && angleDifference <= angleDeviation;
     }
+
+    /** Checks if the deviations are fulfilled, like {@link #isDeviationFulfilled(Situation, double)} without creating
+     *  a Situation.
+     *  @param state the state to be evaluated.
+     *  @return true if the variables are less or equal to the deviation. */
+    @Override
+    public boolean isDeviationFulfilled(PlanningState state) {
+
+        Vector3 targetPoint = targetPointFunc.apply(state);
+
+        //Calculate function variables
+        Vector3 carPos = state.getPosition();
+        double distToBall = carPos.getDistanceTo(targetPoint); // Distance
+
+        Vector3 desiredShotDirection = targetPoint.minus(carPos); //From car to desiredPoint
+        Vector3 currentShotDirection = state.getBallVelocity().plus(state.getVelocity());
+        double angleDifference = desiredShotDirection.getAngleTo(currentShotDirection);
+
+        return distToBall <= distDeviation && angleDifference <= angleDeviation;
+    }
 }
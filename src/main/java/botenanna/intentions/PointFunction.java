@@ -0,0 +1,65 @@
+package botenanna.intentions;
+
+import botenanna.game.Situation;
+import botenanna.math.Vector3;
+import botenanna.prediction.PlanningState;
+
+import java.util.function.Function;
+
+/** A PointFunction finds a point in a Situation, e.g. the destination of an intention. Planners evaluate it on a
+ * {@link PlanningState}, which by default creates a Situation from the state. That is expensive, so the points that
+ * are the most common, {@link #constant(Vector3)} and {@link #ballPosition()}, read the state directly. */
+@FunctionalInterface
+public interface PointFunction extends Function<Situation, Vector3> {
+
+    /** @return the point in a PlanningState. */
+    default Vector3 apply(PlanningState state) {
+        return apply(state.toSituation());
+    }
+
+    /** @return whether the point depends on my car. If it does not, it is the same in all PlanningStates at the same
+     * time, so it can be found once per time. */
+    default boolean dependsOnCar() {
+        return true;
+    }
+
+    /** @return a PointFunction that always returns the same point. */
+    static PointFunction constant(Vector3 point) {
+        return new PointFunction() {
+            @Override
+            public Vector3 apply(Situation situation) {
+                return point;
+            }
+
+            @Override
+            public Vector3 apply(PlanningState state) {
+                return point;
+            }
+
+            @Override
+            public boolean dependsOnCar() {
+                return false;
+            }
+        };
+    }
+
+    /** @return a PointFunction that returns the position of the ball. */
+    static PointFunction ballPosition() {
+        return new PointFunction() {
+            @Override
+            public Vector3 apply(Situation situation) {
+                return situation.getBall().getPosition();
+            }
+
+            @Override
+            public Vector3 apply(PlanningState state) {
+                return state.getBallPosition();
+            }
+
+            @Override
+            public boolean dependsOnCar() {
+                return false;
+            }
+        };
+    }
+}
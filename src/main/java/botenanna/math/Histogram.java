@@ -0,0 +1,131 @@
+package botenanna.math;
+
+/** <p>A Histogram counts values in buckets with fixed upper bounds. Each value is counted in the first bucket whose
+ * bound is at least the value, and values above the last bound are counted in an extra overflow bucket. The mean and
+ * the maximum are tracked exactly, while percentiles are estimated as the bound of the bucket they fall in.</p>
+ *
+ * <p>A Histogram is not thread safe.</p> */
+public class Histogram {
+
+    private final double[] bounds;
+    private final long[] counts;
+    private long count;
+    private double sum;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /** @param bounds the upper bounds of the buckets in increasing order. At least one is needed. */
+    public Histogram(double... bounds) {
+        if (bounds.length == 0) throw new IllegalArgumentException("A histogram needs at least one bucket.");
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) throw new IllegalArgumentException("Bounds must be increasing.");
+        }
+        this.bounds = bounds.clone();
+        this.counts = new long[bounds.length + 1];
+    }
+
+    /** @return a Histogram with bounds {@code first, first * factor, first * factor^2, ...}.
+     * @param first must be positive.
+     * @param factor must be greater than one.
+     * @param buckets the number of buckets, not counting the overflow bucket. */
+    public static Histogram exponential(double first, double factor, int buckets) {
+        if (first <= 0) throw new IllegalArgumentException("First bound must be positive.");
+        if (factor <= 1) throw new IllegalArgumentException("Factor must be greater than one.");
+        double[] bounds = new double[buckets];
+        double bound = first;
+        for (int i = 0; i < buckets; i++) {
+            bounds[i] = bound;
+            bound *= factor;
+        }
+        return new Histogram(bounds);
+    }
+
+    /** @return a Histogram with bounds {@code first, first + width, first + 2 * width, ...}.
+     * @param width must be positive.
+     * @param buckets the number of buckets, not counting the overflow bucket. */
+    public static Histogram linear(double first, double width, int buckets) {
+        if (width <= 0) throw new IllegalArgumentException("Width must be positive.");
+        double[] bounds = new double[buckets];
+        for (int i = 0; i < buckets; i++) {
+            bounds[i] = first + i * width;
+        }
+        return new Histogram(bounds);
+    }
+
+    /** Count a value. */
+    public void add(double value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) bucket++;
+        counts[bucket]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /** @return the number of values counted. */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return the mean of the values counted, or 0 if there are none. */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /** @return the largest value counted, or 0 if there are none. */
+    public double getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /** @return an upper estimate of the given percentile: the bound of the bucket it falls in, or the maximum if it
+     * falls in the overflow bucket. 0 if no values are counted.
+     * @param percentile between 0 and 100. */
+    public double getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(bounds[i], max);
+        }
+        return max;
+    }
+
+    /** @return the number of buckets, including the overflow bucket. */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /** @return the upper bound of a bucket. The overflow bucket has no bound and returns infinity. */
+    public double getBound(int bucket) {
+        return bucket == bounds.length ? Double.POSITIVE_INFINITY : bounds[bucket];
+    }
+
+    /** @return the number of values counted in a bucket. */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /** @return the non-empty buckets as "<=bound: count", e.g. "<=1: 4, <=2: 10, >8: 1". */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) continue;
+            if (builder.length() > 0) builder.append(", ");
+            if (i == bounds.length) {
+                builder.append('>').append(formatBound(bounds[bounds.length - 1]));
+            } else {
+                builder.append("<=").append(formatBound(bounds[i]));
+            }
+            builder.append(": ").append(counts[i]);
+        }
+        return builder.toString();
+    }
+
+    /** Helper function that formats a bound without trailing zeros. */
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? Long.toString((long) bound) : Double.toString(bound);
+    }
+}
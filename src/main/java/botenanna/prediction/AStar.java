@@ -5,73 +5,505 @@ import botenanna.game.Car;
 import botenanna.game.Situation;
 import botenanna.intentions.IntentionFunction;
 import botenanna.math.SteppedTimeLine;
+import botenanna.math.TimeLine;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
-public class AStar {
+/** <p>The AStar is a {@link Planner} that finds a sequence of actions that steers the agent towards a desired
+ * intention. The method uses a modified version of A*.</p>
+ *
+ * <p>The nodes of the search are stored in an arena of primitive arrays, where a node is an index, and the open set is
+ * a {@link NodeHeap} of these indices. Actions are stored as their id in the {@link ActionCatalog}, whose precomputed
+ * successor tables are used to expand nodes. The arena is kept and reused by the next search, so an AStar should be
+ * created once and used for many searches. A search never creates more than the maximum number of nodes given at
+ * creation.</p>
+ *
+ * <p>A search can be given a wall-clock budget. When the budget runs out, the sequence towards the best node found so
+ * far is returned, which makes the search an anytime algorithm. A search on a background thread stops when the thread
+ * is interrupted, see {@link PlannerExecutor}.</p>
+ *
+ * <p>Sequences of actions that lead to nearly the same car state are detected through a transposition table keyed by
+ * a {@link StateQuantizer}. A new node whose state is already known with an equal or better value is pruned. If the
+ * new node is better, the old one is superseded and skipped when it reaches the top of the open set.</p>
+ *
+ * <p>The children of a node are simulated together and their intention values are computed in one call on a
+ * {@link PlanningBatch}. Optionally, nodes with many children can have them simulated in parallel on a pool shared by
+ * all AStars, see {@link #setParallelThreshold(int)}. The children are added in the same order either way, so the
+ * result is the same.</p>
+ *
+ * <p>In macro-action mode each edge of the search holds its action for several steps, see
+ * {@link #setMacroSteps(int)}. The search still stops after the same number of edges, so the plans reach further
+ * into the future with the same number of nodes. The returned sequence has one action per step either
+ * way.</p>
+ *
+ * <p>Every search records {@link PlannerStats}, see {@link #getLastStats()}.</p> */
+public class AStar implements Planner {
 
+    public static final int DEFAULT_MAX_NODES = 20000;
     private static final int FORCED_STOP_ITERATIONS = 4;
+    private static final int INITIAL_CAPACITY = 256;
+    /** The pool children are simulated on in parallel. It is separate from the common pool, so the planners do not
+     * compete with other parallel work, and the planner's thread can be interrupted while it waits for the pool. */
+    private static final ForkJoinPool SIMULATION_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
-    /** The TimeNode wraps the Situation which enables us to build a tree of Situations and remember details about
-     * the evaluation of each node. */
-    private static class TimeNode {
-        public final Situation situation;
-        public final ActionSet actionTaken;
-        public final TimeNode cameFrom;
-        public final double timeSpent;
-        public final double intentionValue;
-
-        public TimeNode(Situation situation, ActionSet actionTaken, TimeNode cameFrom, double timeSpent, IntentionFunction intentionFunction) {
-            this.cameFrom = cameFrom;
-            this.situation = situation;
-            this.actionTaken = actionTaken;
-            this.timeSpent = timeSpent;
-            intentionValue = intentionFunction.compute(situation, timeSpent);
-        }
+    private final int maxNodes;
+    private final StateQuantizer quantizer;
+    private final TranspositionTable transpositions;
+
+    // The node arena. Each node has a PlanningState, which enables us to build a tree of states and remember details
+    // about the evaluation of each node. The states are reused by later searches
+    private PlanningState[] states;
+    private int[] actionsTaken;
+    private int[] cameFrom;
+    private double[] intentionValues;
+    private boolean[] superseded;
+    private int nodeCount;
+
+    // The open set, ordered by intention value
+    private final NodeHeap open;
+
+    // The children of the node being expanded, waiting to be added. They are evaluated together as a batch
+    private int parallelThreshold = Integer.MAX_VALUE;
+    private volatile boolean simulationCancelled = false;
+    private PlanningState[] children = new PlanningState[0];
+    private double[] childValues = new double[0];
+    private final PlanningBatch batch = new PlanningBatch(ActionCatalog.SIZE);
+
+    private int macroSteps = 1;
+
+    private boolean budgetExhausted;
+    private boolean deadlineHit;
+    private boolean incumbentReturned;
+    private int prunedCount;
+    private int expandedCount;
+    private int simulatedCount;
+    private int resultNode;
+    private PlannerStats lastStats;
+
+    /** Create an AStar that uses at most {@link #DEFAULT_MAX_NODES} nodes per search and detects duplicate states
+     * with {@link StateQuantizer#DEFAULT}. */
+    public AStar() {
+        this(DEFAULT_MAX_NODES, StateQuantizer.DEFAULT);
+    }
+
+    /** Create an AStar that uses at most {@code maxNodes} nodes per search and detects duplicate states with
+     * {@link StateQuantizer#DEFAULT}.
+     * @param maxNodes must be positive. */
+    public AStar(int maxNodes) {
+        this(maxNodes, StateQuantizer.DEFAULT);
+    }
+
+    /** Create an AStar that uses at most {@code maxNodes} nodes per search.
+     * @param maxNodes must be positive.
+     * @param quantizer used to detect duplicate states, or null to not detect them. */
+    public AStar(int maxNodes, StateQuantizer quantizer) {
+        if (maxNodes < 1) throw new IllegalArgumentException("Max nodes must be positive.");
+
+        this.maxNodes = maxNodes;
+        this.quantizer = quantizer;
+        this.transpositions = quantizer == null ? null : new TranspositionTable(Math.min(INITIAL_CAPACITY, maxNodes) * 2);
+        this.open = new NodeHeap(Math.min(INITIAL_CAPACITY, maxNodes));
+        allocate(Math.min(INITIAL_CAPACITY, maxNodes));
+    }
+
+    @Override
+    public TimeLine<ActionSet> plan(Situation situation, IntentionFunction intention, double stepsize, double timeBudget) {
+        return findSequence(situation, intention, stepsize, timeBudget);
+    }
+
+    @Override
+    public TimeLine<ActionSet> plan(Situation situation, IntentionFunction intention, double stepsize, double timeBudget, List<ActionSet> seed) {
+        return findSequence(situation, intention, stepsize, timeBudget, seed);
+    }
+
+    /** Find a sequence of actions that steers the agent towards a desired intention defined by an intention function.
+     * If the node budget runs out, the sequence towards the best node found so far is returned.
+     * @return the sequence, or null if none was found. */
+    public SteppedTimeLine<ActionSet> findSequence(Situation startSituation, IntentionFunction intention, double stepsize) {
+        return findSequence(startSituation, intention, stepsize, Double.POSITIVE_INFINITY);
     }
 
     /** Find a sequence of actions that steers the agent towards a desired intention defined by an intention function.
-     * The method uses a modified version of A*. */
-    public static SteppedTimeLine<ActionSet> findSequence(Situation startSituation, IntentionFunction intention, double stepsize) {
+     * If the node budget or the time budget runs out, the sequence towards the best node found so far is returned. The
+     * first node is always expanded, so the sequence is never empty when the time budget runs out.
+     * @param timeBudget the wall-clock time in milliseconds the search may use.
+     * @return the sequence, or null if none was found or the thread was interrupted. */
+    public SteppedTimeLine<ActionSet> findSequence(Situation startSituation, IntentionFunction intention, double stepsize, double timeBudget) {
+        return findSequence(startSituation, intention, stepsize, timeBudget, Collections.emptyList());
+    }
+
+    /** Find a sequence of actions like {@link #findSequence(Situation, IntentionFunction, double, double)}, but warm
+     * started from a seed sequence, usually what is left of the previous plan. The seed is simulated from the start
+     * situation and its nodes are added to the search. If the seed reaches a destination, it becomes the incumbent:
+     * the search stops as soon as no open node is better than it, and it is returned if the search runs out of time or
+     * nodes.
+     * @param seed the actions of the seed, one per step. In macro-action mode the first action of every edge is used.
+     * @return the sequence, or null if none was found or the thread was interrupted. */
+    public SteppedTimeLine<ActionSet> findSequence(Situation startSituation, IntentionFunction intention, double stepsize, double timeBudget, List<ActionSet> seed) {
+        return findSequence(new PlanningState(startSituation, stepsize * macroSteps), intention, stepsize, timeBudget, seed);
+    }
+
+    /** Find a sequence of actions like {@link #findSequence(Situation, IntentionFunction, double, double, List)}, but
+     * starting from a PlanningState at time 0. The state is not changed. */
+    SteppedTimeLine<ActionSet> findSequence(PlanningState startState, IntentionFunction intention, double stepsize, double timeBudget, List<ActionSet> seed) {
+        long startTime = System.nanoTime();
+        long timeBudgetNanos = (long) (timeBudget * 1_000_000); // Infinity becomes Long.MAX_VALUE
+        nodeCount = 0;
+        open.clear();
+        budgetExhausted = false;
+        deadlineHit = false;
+        incumbentReturned = false;
+        prunedCount = 0;
+        expandedCount = 0;
+        simulatedCount = 0;
+        resultNode = -1;
+        if (transpositions != null) transpositions.clear();
+
+        try {
+            int start = reserveNode();
+            states[start].set(startState);
+            initNode(start, ActionCatalog.NONE, -1, intention.compute(states[start]));
+            addTransposition(start, stepsize);
+            open.push(start, intentionValues[start]);
+            int incumbent = addSeed(start, seed, intention, stepsize);
+
+            while (!open.isEmpty()) {
+                int current = open.peek();
+
+                // A better node with the same state was found after this one was added
+                if (superseded[current]) {
+                    open.pop();
+                    continue;
+                }
+
+                // Nothing left is better than the incumbent?
+                if (incumbent != -1 && !isBefore(current, incumbent)) {
+                    incumbentReturned = true;
+                    return toResult(incumbent, stepsize);
+                }
+
+                // Is this situation a fulfilling destination? The start is never one, since the sequence would be empty
+                if (cameFrom[current] != -1 && isDestination(current, intention, stepsize)) {
+                    return toResult(current, stepsize);
+                }
+
+                // Out of time? The incumbent or the current node is the best found so far
+                if (cameFrom[current] != -1 && System.nanoTime() - startTime >= timeBudgetNanos) {
+                    deadlineHit = true;
+                    return toResult(bestResult(current, incumbent), stepsize);
+                }
 
-        TimeNode startNode = new TimeNode(startSituation, new ActionSet(), null, 0, intention);
+                // Cancelled?
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
 
-        TreeSet<TimeNode> openSet = new TreeSet<>((n1, n2) -> {
-            if (n1 == n2) return 0; // Must be consistent with equals
-            double fit = n1.intentionValue - n2.intentionValue;
-            // Even if the situations have the same value, they are not the same
-            if (fit < 0) return -1;
-            else return 1;
-        });
+                open.pop();
+                expandedCount++;
 
-        openSet.add(startNode);
+                // Try all sensible actions and simulate what situations they create
+                int[] followingActions = getSuccessors(states[current], actionsTaken[current]);
+                if (!simulateChildren(states[current], followingActions, intention, stepsize)) {
+                    return null;
+                }
 
-        while (!openSet.isEmpty()) {
-            TimeNode current = openSet.first();
+                for (int i = 0; i < followingActions.length; i++) {
+                    if (nodeCount == maxNodes) {
+                        budgetExhausted = true;
+                        // The best open node is the result, unless it is superseded or there is none left
+                        while (!open.isEmpty() && superseded[open.peek()]) open.pop();
+                        int best = bestResult(open.isEmpty() ? current : open.peek(), incumbent);
+                        return cameFrom[best] == -1 ? null : toResult(best, stepsize);
+                    }
 
-            // Is this situation a fulfilling destination?
-            if (current.actionTaken != null) {
-                if (current.timeSpent >= stepsize * FORCED_STOP_ITERATIONS || intention.isDeviationFulfilled(current.situation, current.timeSpent)) {
-                    List<ActionSet> sequence = reconstructSequence(current);
-                    return toTimeLine(sequence, stepsize);
+                    int action = followingActions[i];
+                    int node = reserveNode();
+                    // The child's state moves into the arena, and the arena's unused state becomes the child's
+                    PlanningState state = states[node];
+                    states[node] = children[i];
+                    children[i] = state;
+                    initNode(node, action, current, childValues[i]);
+                    if (addTransposition(node, stepsize)) {
+                        open.push(node, intentionValues[node]);
+                    } else {
+                        removeLastNode();
+                        prunedCount++;
+                    }
                 }
             }
 
-            openSet.remove(current);
+            return incumbent == -1 ? null : toResult(incumbent, stepsize);
+
+        } finally {
+            lastStats = createStats(intention, stepsize, System.nanoTime() - startTime);
+
+            // Let go of the start situation, so it can be garbage collected
+            for (int i = 0; i < nodeCount; i++) {
+                states[i].clearOrigin();
+            }
+            for (PlanningState child : children) {
+                child.clearOrigin();
+            }
+        }
+    }
+
+    /** Helper method that remembers the node the search ended at.
+     * @return the sequence towards the node. */
+    private SteppedTimeLine<ActionSet> toResult(int node, double stepsize) {
+        resultNode = node;
+        return toTimeLine(reconstructSequence(node), stepsize);
+    }
+
+    /** Helper method that creates the stats of the search that just ended. */
+    private PlannerStats createStats(IntentionFunction intention, double stepsize, long wallTimeNanos) {
+        double maxTime = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            maxTime = Math.max(maxTime, states[i].time);
+        }
+        int maxDepth = (int) Math.round(maxTime / (stepsize * macroSteps));
+
+        boolean forcedStop = false;
+        boolean deviationFulfilled = false;
+        if (resultNode != -1) {
+            forcedStop = isForcedStop(resultNode, stepsize);
+            deviationFulfilled = !forcedStop && intention.isDeviationFulfilled(states[resultNode]);
+        }
+
+        return new PlannerStats(expandedCount, simulatedCount, maxDepth, wallTimeNanos / 1e6, forcedStop,
+                deviationFulfilled, deadlineHit, budgetExhausted, resultNode == -1);
+    }
+
+    /** Helper method that simulates the seed from the start node and adds its nodes to the open set. The seed stops at
+     * the first destination, at the first action that is not in the {@link ActionCatalog}, or when the node budget
+     * runs out.
+     * @return the node where the seed reached a destination, or -1 if it did not. */
+    private int addSeed(int start, List<ActionSet> seed, IntentionFunction intention, double stepsize) {
+        int node = start;
+        for (int i = 0; i < seed.size(); i += macroSteps) {
+            int action = ActionCatalog.idOf(seed.get(i));
+            if (nodeCount == maxNodes || action == -1) return -1;
+
+            int parent = node;
+            node = reserveNode();
+            simulateEdge(states[parent], states[node], action, stepsize);
+            simulatedCount++;
+            initNode(node, action, parent, intention.compute(states[node]));
+            // The seed is kept whole, even if it visits known states
+            addTransposition(node, stepsize);
+            open.push(node, intentionValues[node]);
 
-            // Try all sensible actions and simulate what situations they create
-            List<ActionSet> followingActions = getFollowingActionSets(current.situation, current.actionTaken);
-            for (ActionSet action : followingActions) {
-                Situation newSituation = Simulation.simulate(current.situation, stepsize, action);
-                TimeNode node = new TimeNode(newSituation, action, current, current.timeSpent + stepsize, intention);
-                openSet.add(node);
+            if (isDestination(node, intention, stepsize)) return node;
+        }
+        return -1;
+    }
+
+    /** Helper method that simulates all children of a node and computes their intention values in one batch. The
+     * states are stored in {@code children} and the values in {@code childValues}, in the same order as the actions.
+     * With many children they are simulated on the {@link #SIMULATION_POOL}, see {@link #setParallelThreshold(int)}.
+     * The order does not depend on which thread finishes first.
+     * @return false if the thread was interrupted while waiting for the pool, in which case nothing is computed. */
+    private boolean simulateChildren(PlanningState parent, int[] actions, IntentionFunction intention, double stepsize) {
+        if (children.length < actions.length) {
+            int oldLength = children.length;
+            children = Arrays.copyOf(children, actions.length);
+            childValues = new double[actions.length];
+            for (int i = oldLength; i < children.length; i++) children[i] = new PlanningState();
+        }
+
+        PlanningState[] results = children;
+        if (actions.length >= parallelThreshold) {
+            ForkJoinTask<?> task = SIMULATION_POOL.submit(() -> IntStream.range(0, actions.length).parallel()
+                    .forEach(i -> {
+                        if (!simulationCancelled) simulateEdge(parent, results[i], actions[i], stepsize);
+                    }));
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                // Skip the edges not yet simulated, but wait for the rest, since the children are reused by the next search
+                simulationCancelled = true;
+                task.quietlyJoin();
+                simulationCancelled = false;
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        } else {
+            for (int i = 0; i < actions.length; i++) {
+                simulateEdge(parent, results[i], actions[i], stepsize);
             }
         }
+        simulatedCount += actions.length;
+
+        batch.clear();
+        for (int i = 0; i < actions.length; i++) {
+            batch.add(results[i]);
+        }
+        intention.compute(batch, childValues);
+        return true;
+    }
+
+    /** Helper method that simulates an edge of the search, where an action is held for {@link #macroSteps} steps.
+     * The state at the end of the edge is stored in {@code to}. */
+    private void simulateEdge(PlanningState from, PlanningState to, int action, double stepsize) {
+        ActionSet actionSet = ActionCatalog.get(action);
+        to.set(from);
+        for (int i = 0; i < macroSteps; i++) {
+            Simulation.simulate(to, stepsize, actionSet);
+        }
+    }
+
+    /** Hold the action of each edge of the search for {@code steps} steps. One step is the default. More steps make
+     * the plans longer without using more nodes, but the actions can change less often. The intention is only checked
+     * at the end of each edge.
+     * @param steps must be positive. */
+    @Override
+    public void setMacroSteps(int steps) {
+        if (steps < 1) throw new IllegalArgumentException("Macro steps must be positive.");
+        this.macroSteps = steps;
+    }
+
+    @Override
+    public int getMacroSteps() {
+        return macroSteps;
+    }
+
+    /** Simulate the children of a node in parallel when it has at least {@code threshold} children. Parallel expansion
+     * is off by default, since it only pays off when the planner's thread would otherwise be the only busy one.
+     * @param threshold the minimum number of children, or {@link Integer#MAX_VALUE} to never expand in parallel. */
+    public void setParallelThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("Threshold must be positive.");
+        this.parallelThreshold = threshold;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /** Helper method that registers a node in the transposition table. If another node with the same state is known,
+     * the best of the two is kept and the other is superseded.
+     * @return false if the node is not better than a known node with the same state. */
+    private boolean addTransposition(int node, double stepsize) {
+        if (transpositions == null) return true;
+
+        int depth = (int) Math.round(states[node].time / stepsize);
+        long key = quantizer.hash(states[node], depth);
+        int other = transpositions.get(key);
+        if (other != -1) {
+            if (!isBefore(node, other)) return false;
+            superseded[other] = true;
+        }
+        transpositions.put(key, node);
+        return true;
+    }
+
+    /** Helper method that removes the latest added node from the arena. */
+    private void removeLastNode() {
+        nodeCount--;
+    }
+
+    /** @return whether a node is a destination, where the search can stop. */
+    private boolean isDestination(int node, IntentionFunction intention, double stepsize) {
+        return isForcedStop(node, stepsize) || intention.isDeviationFulfilled(states[node]);
+    }
+
+    /** @return whether a node is so far from the start that the search must stop there. */
+    private boolean isForcedStop(int node, double stepsize) {
+        return states[node].time >= stepsize * macroSteps * FORCED_STOP_ITERATIONS;
+    }
+
+    /** @return the incumbent if there is one, otherwise the given node. */
+    private static int bestResult(int node, int incumbent) {
+        return incumbent != -1 ? incumbent : node;
+    }
+
+    /** @return the number of nodes created by the latest search. */
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /** @return whether the latest search was stopped because it ran out of nodes. */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /** @return whether the latest search was stopped because it ran out of time. */
+    @Override
+    public boolean isDeadlineHit() {
+        return deadlineHit;
+    }
+
+    /** @return the number of nodes the latest search pruned, because their state was already known. */
+    public int getPrunedCount() {
+        return prunedCount;
+    }
+
+    @Override
+    public PlannerStats getLastStats() {
+        return lastStats;
+    }
+
+    /** @return whether the latest search returned the seed, because nothing better was found. */
+    public boolean isIncumbentReturned() {
+        return incumbentReturned;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /** Helper method that takes the next node of the arena, growing it if needed. The state of the node must be set
+     * before the node is initialized with {@link #initNode(int, int, int, double)}.
+     * @return the index of the node. */
+    private int reserveNode() {
+        if (nodeCount == states.length) {
+            allocate(Math.min(states.length * 2, maxNodes));
+        }
+        return nodeCount++;
+    }
+
+    /** Helper method that stores the details of a node, including the intention value of its state. */
+    private void initNode(int node, int actionTaken, int parent, double intentionValue) {
+        actionsTaken[node] = actionTaken;
+        cameFrom[node] = parent;
+        intentionValues[node] = intentionValue;
+        superseded[node] = false;
+    }
+
+    /** Helper method that creates or grows the arrays of the arena. */
+    private void allocate(int capacity) {
+        int oldCapacity = 0;
+        if (states == null) {
+            states = new PlanningState[capacity];
+            actionsTaken = new int[capacity];
+            cameFrom = new int[capacity];
+            intentionValues = new double[capacity];
+            superseded = new boolean[capacity];
+        } else {
+            oldCapacity = states.length;
+            states = Arrays.copyOf(states, capacity);
+            actionsTaken = Arrays.copyOf(actionsTaken, capacity);
+            cameFrom = Arrays.copyOf(cameFrom, capacity);
+            intentionValues = Arrays.copyOf(intentionValues, capacity);
+            superseded = Arrays.copyOf(superseded, capacity);
+        }
+        for (int i = oldCapacity; i < capacity; i++) {
+            states[i] = new PlanningState();
+        }
+    }
 
-        return null;
+    /** @return whether node a should be explored before node b. A lower intention value is better. Nodes with the same
+     * value are explored in the order they were created. */
+    private boolean isBefore(int a, int b) {
+        return NodeHeap.isBefore(a, intentionValues[a], b, intentionValues[b]);
     }
 
     /** Helper method for the {@link #findSequence(Situation, IntentionFunction, double)}.
@@ -87,74 +519,42 @@ public class AStar {
     }
 
     /** Helper method for the {@link #findSequence(Situation, IntentionFunction, double)} to backtrack the actions taken
-     * and create the sequence. */
-    private static List<ActionSet> reconstructSequence(TimeNode destination) {
-        TimeNode current = destination;
+     * and create the sequence in the order the actions should be taken. Each action is repeated for every step of its
+     * edge. */
+    private List<ActionSet> reconstructSequence(int destination) {
         List<ActionSet> sequence = new ArrayList<>();
-        while (current.cameFrom != null) {
-            sequence.add(current.actionTaken);
-            current = current.cameFrom;
+        for (int node = destination; cameFrom[node] != -1; node = cameFrom[node]) {
+            for (int i = 0; i < macroSteps; i++) {
+                sequence.add(ActionCatalog.get(actionsTaken[node]));
+            }
         }
+        Collections.reverse(sequence);
         return sequence;
     }
 
-    /** This method will generate all valid ActionSet that sensibly follow a given ActionSet in a Situation.
+    /** This method will generate all valid ActionSet that sensibly follow a given ActionSet in a Situation. The
+     * ActionSets are the shared, frozen ones of the {@link ActionCatalog}.
      * @param situation the Situation.
      * @param current the ActionSet prior to the ones generated. */
     public static List<ActionSet> getFollowingActionSets(Situation situation, ActionSet current) {
-
-        List<ActionSet> following = new LinkedList<>();
-
-        Car myCar = situation.getMyCar();
-
-        double[] newThrottles = getFollowingDirections(current == null ? 0 : current.getThrottle());
-        double[] newSteerings = getFollowingDirections(current == null ? 0 : current.getSteer());
-        // pitch and roll is 0, if car is grounded
-        double[] newPitches = myCar.isMidAir() ? getFollowingDirections(current == null ? 0 : current.getPitch()) : new double[]{0};
-        double[] newRolls = myCar.isMidAir() ? getFollowingDirections(current == null ? 0 : current.getRoll()) : new double[]{0};
-        // jump is false, if jumping has no effect // FIXME With current implementation, second jump will always be one step long
-        boolean[] newJumps = !myCar.hasDoubleJumped() ? new boolean[]{true, false} : new boolean[]{false};
-        // boost is false, if car has no boost
-        boolean[] newBoosts = myCar.getBoost() > 0 ? new boolean[]{true, false} : new boolean[]{false};
-        boolean[] newSlides = new boolean[]{true, false};
-
-        for (double throttle : newThrottles) {
-            for (double steer : newSteerings) {
-                for (double pitch : newPitches) {
-                    for (double roll : newRolls) {
-                        for (boolean jump : newJumps) {
-                            for (boolean boost : newBoosts) {
-                                // boost is false, if throttle is 0 or -1
-                                if (boost && throttle != 1) continue;
-
-                                for (boolean slide : newSlides) {
-                                    // slide is false, when boost is true, or when steer == 0
-                                    if (slide && (boost || steer == 0)) continue;
-
-                                    following.add(new ActionSet()
-                                            .withThrottle(throttle)
-                                            .withSteer(steer)
-                                            .withPitch(pitch)
-                                            .withRoll(roll)
-                                            .withJump(jump)
-                                            .withBoost(boost)
-                                            .withSlide(slide));
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        int[] successors = getSuccessors(situation, ActionCatalog.idOf(current));
+        List<ActionSet> following = new ArrayList<>(successors.length);
+        for (int action : successors) {
+            following.add(ActionCatalog.get(action));
         }
-
         return following;
     }
 
-    /** A helper method that returns an array of directions that are close to a given direction. */
-    private static double[] getFollowingDirections(double value) {
-        if (value == 1) return new double[]{1, 0};
-        if (value == -1) return new double[]{0, -1};
-        if (value == 0) return new double[]{1, 0, -1};
-        return new double[0];
+    /** @return the ids of the actions that sensibly follow the action with the given id in a PlanningState. The array
+     * is shared and must not be changed. */
+    private static int[] getSuccessors(PlanningState state, int current) {
+        return ActionCatalog.getSuccessors(current, state.midAir, state.boost > 0, state.hasDoubleJumped);
+    }
+
+    /** @return the ids of the actions that sensibly follow the action with the given id in a Situation. The array is
+     * shared and must not be changed. */
+    private static int[] getSuccessors(Situation situation, int current) {
+        Car myCar = situation.getMyCar();
+        return ActionCatalog.getSuccessors(current, myCar.isMidAir(), myCar.getBoost() > 0, myCar.hasDoubleJumped());
     }
 }
@@ -0,0 +1,148 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+
+/** <p>The ActionCatalog contains every discrete action the planner can take: throttle, steer, pitch and roll in
+ * {-1, 0, 1}, and jump, boost and slide on or off. Each action is an interned, frozen {@link ActionSet} with an integer
+ * id, so the planner can refer to actions by id and share the same instances everywhere.</p>
+ *
+ * <p>The actions that sensibly follow an action are precomputed for each combination of previous action, whether the
+ * car is midair, whether it has boost, and whether it has double jumped. They are returned as shared arrays of ids, so
+ * no allocation happens during a search. The arrays must not be changed.</p> */
+public class ActionCatalog {
+
+    private static final double[] DIRECTIONS = {-1, 0, 1};
+    private static final int BOOLEANS = 8;
+
+    /** The number of actions in the catalog. */
+    public static final int SIZE = 3 * 3 * 3 * 3 * BOOLEANS;
+    /** The id of the action where nothing is pressed. */
+    public static final int NONE = id(0, 0, 0, 0, false, false, false);
+
+    private static final ActionSet[] actions = new ActionSet[SIZE];
+    // Successors only depend on the analog inputs of the previous action, so the booleans are left out of the key
+    private static final int[][] successors = new int[SIZE / BOOLEANS * 8][];
+    private static final int[] NO_SUCCESSORS = new int[0];
+
+    static {
+        for (double throttle : DIRECTIONS) {
+            for (double steer : DIRECTIONS) {
+                for (double pitch : DIRECTIONS) {
+                    for (double roll : DIRECTIONS) {
+                        for (int flags = 0; flags < BOOLEANS; flags++) {
+                            boolean jump = (flags & 4) != 0;
+                            boolean boost = (flags & 2) != 0;
+                            boolean slide = (flags & 1) != 0;
+                            actions[id(throttle, steer, pitch, roll, jump, boost, slide)] = new ActionSet()
+                                    .withThrottle(throttle)
+                                    .withSteer(steer)
+                                    .withPitch(pitch)
+                                    .withRoll(roll)
+                                    .withJump(jump)
+                                    .withBoost(boost)
+                                    .withSlide(slide)
+                                    .freeze();
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int previous = 0; previous < SIZE; previous += BOOLEANS) {
+            for (int state = 0; state < 8; state++) {
+                successors[successorKey(previous, (state & 4) != 0, (state & 2) != 0, (state & 1) != 0)] =
+                        createSuccessors(actions[previous], (state & 4) != 0, (state & 2) != 0, (state & 1) != 0);
+            }
+        }
+    }
+
+    /** @return the action with the given id. The ActionSet is frozen and must not be changed. */
+    public static ActionSet get(int id) {
+        return actions[id];
+    }
+
+    /** @return the id of the catalog action equal to the given ActionSet, or -1 if it is not in the catalog, which is
+     * the case if it has analog inputs other than -1, 0 and 1. */
+    public static int idOf(ActionSet action) {
+        if (action == null) return NONE;
+        if (!isDirection(action.getThrottle()) || !isDirection(action.getSteer())
+                || !isDirection(action.getPitch()) || !isDirection(action.getRoll())) return -1;
+        return id(action.getThrottle(), action.getSteer(), action.getPitch(), action.getRoll(),
+                action.isJumpDepressed(), action.isBoostDepressed(), action.isSlideDepressed());
+    }
+
+    /** @return the ids of the actions that sensibly follow the action {@code previous}. The array is shared and must
+     * not be changed. An unknown previous action (-1) has no successors.
+     * @param midAir whether the car is midair. Pitch and roll are only used midair.
+     * @param hasBoost whether the car has boost left.
+     * @param hasDoubleJumped whether the car has used its second jump, after which jumping has no effect. */
+    public static int[] getSuccessors(int previous, boolean midAir, boolean hasBoost, boolean hasDoubleJumped) {
+        if (previous == -1) return NO_SUCCESSORS;
+        return successors[successorKey(previous, midAir, hasBoost, hasDoubleJumped)];
+    }
+
+    /** Helper function that computes the id of an action from its inputs. */
+    private static int id(double throttle, double steer, double pitch, double roll, boolean jump, boolean boost, boolean slide) {
+        int analog = (((int) throttle + 1) * 27) + (((int) steer + 1) * 9) + (((int) pitch + 1) * 3) + ((int) roll + 1);
+        return analog * BOOLEANS + (jump ? 4 : 0) + (boost ? 2 : 0) + (slide ? 1 : 0);
+    }
+
+    /** Helper function that computes where the successors of an action are stored. */
+    private static int successorKey(int previous, boolean midAir, boolean hasBoost, boolean hasDoubleJumped) {
+        return (previous / BOOLEANS) * 8 + (midAir ? 4 : 0) + (hasBoost ? 2 : 0) + (hasDoubleJumped ? 1 : 0);
+    }
+
+    private static boolean isDirection(double value) {
+        return value == -1 || value == 0 || value == 1;
+    }
+
+    /** Helper function that lists the actions that sensibly follow an action. The order is the same as the one
+     * {@link AStar} has always expanded children in. */
+    private static int[] createSuccessors(ActionSet current, boolean midAir, boolean hasBoost, boolean hasDoubleJumped) {
+        double[] newThrottles = getFollowingDirections(current.getThrottle());
+        double[] newSteerings = getFollowingDirections(current.getSteer());
+        // pitch and roll is 0, if car is grounded
+        double[] newPitches = midAir ? getFollowingDirections(current.getPitch()) : new double[]{0};
+        double[] newRolls = midAir ? getFollowingDirections(current.getRoll()) : new double[]{0};
+        // jump is false, if jumping has no effect // FIXME With current implementation, second jump will always be one step long
+        boolean[] newJumps = !hasDoubleJumped ? new boolean[]{true, false} : new boolean[]{false};
+        // boost is false, if car has no boost
+        boolean[] newBoosts = hasBoost ? new boolean[]{true, false} : new boolean[]{false};
+        boolean[] newSlides = new boolean[]{true, false};
+
+        int[] following = new int[SIZE];
+        int count = 0;
+        for (double throttle : newThrottles) {
+            for (double steer : newSteerings) {
+                for (double pitch : newPitches) {
+                    for (double roll : newRolls) {
+                        for (boolean jump : newJumps) {
+                            for (boolean boost : newBoosts) {
+                                // boost is false, if throttle is 0 or -1
+                                if (boost && throttle != 1) continue;
+
+                                for (boolean slide : newSlides) {
+                                    // slide is false, when boost is true, or when steer == 0
+                                    if (slide && (boost || steer == 0)) continue;
+
+                                    following[count++] = id(throttle, steer, pitch, roll, jump, boost, slide);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(following, 0, result, 0, count);
+        return result;
+    }
+
+    /** A helper method that returns an array of directions that are close to a given direction. */
+    private static double[] getFollowingDirections(double value) {
+        if (value == 1) return new double[]{1, 0};
+        if (value == -1) return new double[]{0, -1};
+        return new double[]{1, 0, -1};
+    }
+}
@@ -0,0 +1,80 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+
+/** <p>The BallDepthCache holds the ball at each depth of a search. Since no collisions between cars and the ball are
+ * simulated, the ball does not depend on the actions taken, so every node at the same depth has the same ball. It is
+ * looked up the first time a depth is reached and shared by all nodes of the search, instead of once per node.</p>
+ *
+ * <p>The cache may be used by several threads. Two threads reaching a new depth at once may both look it up, which is
+ * harmless since the lookups are equal and {@link Vector3} is immutable.</p>
+ *
+ * <p>Times that are not at a depth, e.g. in the middle of a macro step, or beyond the trajectory, are looked up in the
+ * trajectory as usual.</p> */
+public class BallDepthCache {
+
+    // How close a time must be to a depth to count as that depth. Times are sums of step sizes and may drift a little
+    private static final double EPSILON = 1e-6;
+
+    private final BallTrajectory trajectory;
+    private final double depthTime;
+    private final Vector3[] positions;
+    private final Vector3[] velocities;
+
+    /** Create a cache for the depths of a search that are covered by the trajectory.
+     * @param depthTime the seconds between two depths. Must be positive. */
+    public BallDepthCache(BallTrajectory trajectory, double depthTime) {
+        if (depthTime <= 0) throw new IllegalArgumentException("Depth time must be positive.");
+
+        this.trajectory = trajectory;
+        this.depthTime = depthTime;
+
+        int depths = (int) Math.floor(trajectory.getDuration() / depthTime + EPSILON) + 1;
+        positions = new Vector3[depths];
+        velocities = new Vector3[depths];
+    }
+
+    /** @return the position of the ball {@code time} seconds after the start of the search. */
+    public Vector3 getPosition(double time) {
+        int depth = toDepth(time);
+        if (depth == -1) return trajectory.getPosition(time);
+        Vector3 position = positions[depth];
+        if (position == null) {
+            position = trajectory.getPosition(depth * depthTime);
+            positions[depth] = position;
+        }
+        return position;
+    }
+
+    /** @return the velocity of the ball {@code time} seconds after the start of the search. */
+    public Vector3 getVelocity(double time) {
+        int depth = toDepth(time);
+        if (depth == -1) return trajectory.getVelocity(time);
+        Vector3 velocity = velocities[depth];
+        if (velocity == null) {
+            velocity = trajectory.getVelocity(depth * depthTime);
+            velocities[depth] = velocity;
+        }
+        return velocity;
+    }
+
+    public BallTrajectory getTrajectory() {
+        return trajectory;
+    }
+
+    public double getDepthTime() {
+        return depthTime;
+    }
+
+    /** @return the number of depths that can be cached. */
+    public int getDepthCount() {
+        return positions.length;
+    }
+
+    /** Helper function that finds the depth of a time, or -1 if the time is not at a cached depth. */
+    private int toDepth(double time) {
+        double depth = Math.rint(time / depthTime);
+        if (depth < 0 || depth >= positions.length || Math.abs(depth * depthTime - time) > EPSILON) return -1;
+        return (int) depth;
+    }
+}
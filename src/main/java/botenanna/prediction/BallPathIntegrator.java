@@ -0,0 +1,195 @@
+package botenanna.prediction;
+
+import botenanna.game.Ball;
+import botenanna.math.Vector3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** <p>The BallPathIntegrator moves a ball forwards in time, continuing from where it was left the last time. This
+ * makes it cheap to follow a ball through many small steps, compared to {@link Physics#stepBall(Rigidbody, double)}
+ * from the start each time. Every bounce off the ground or a wall is recorded as a {@link Contact}.</p>
+ *
+ * <p>In drift-free mode every position is calculated from the state right after the latest contact, instead of from
+ * the previous step. This way rounding errors do not pile up between bounces, no matter how small the steps are.</p> */
+public class BallPathIntegrator {
+
+    /** The surfaces a ball can bounce off. */
+    public enum ContactType {
+        GROUND, SIDE_WALL, END_WALL
+    }
+
+    /** A Contact describes a bounce. The position and velocity are the ball's right after the bounce. */
+    public static class Contact {
+        public final double time;
+        public final ContactType type;
+        public final Vector3 position;
+        public final Vector3 velocity;
+        public final boolean rolling;
+
+        public Contact(double time, ContactType type, Vector3 position, Vector3 velocity, boolean rolling) {
+            this.time = time;
+            this.type = type;
+            this.position = position;
+            this.velocity = velocity;
+            this.rolling = rolling;
+        }
+    }
+
+    private final boolean driftFree;
+    private final List<Contact> contacts = new ArrayList<>();
+
+    private double time;
+    private final BodyState state;
+    private boolean rolling;
+
+    // State right after the latest contact
+    private double anchorTime;
+    private final BodyState anchor = new BodyState();
+
+    private double nextContactTime;
+    private ContactType nextContactType;
+
+    /** Create a BallPathIntegrator starting at time 0 with the state of the given ball. The ball is not changed.
+     * @param driftFree whether positions should be calculated from latest bounce instead of from the previous step. */
+    public BallPathIntegrator(Rigidbody ball, boolean driftFree) {
+        this.driftFree = driftFree;
+        this.state = new BodyState(ball);
+
+        // A ball on the ground that is not moving upwards is rolling
+        if (state.pz <= Ball.RADIUS && state.vz <= 0) {
+            rolling = true;
+            state.vz = 0;
+        }
+
+        anchor();
+    }
+
+    /** Move the ball {@code duration} seconds forwards.
+     * @param duration must be zero or positive. */
+    public void advance(double duration) {
+        advanceTo(time + duration);
+    }
+
+    /** Move the ball forwards until it reaches {@code targetTime}. All bounces on the way are recorded.
+     * @param targetTime must not be before the current time. */
+    public void advanceTo(double targetTime) {
+        if (targetTime < time) throw new IllegalArgumentException("Cannot move backwards in time.");
+
+        while (nextContactTime <= targetTime) {
+            moveTo(nextContactTime);
+            bounce(nextContactType);
+            anchor();
+            contacts.add(new Contact(time, nextContactType, getPosition(), getVelocity(), rolling));
+        }
+
+        moveTo(targetTime);
+    }
+
+    /** Helper function to move the ball to a time, where no bounces happen on the way. */
+    private void moveTo(double targetTime) {
+        if (driftFree) {
+            state.set(anchor);
+            PhysicsKernel.stepBody(state, targetTime - anchorTime, !rolling);
+        } else {
+            PhysicsKernel.stepBody(state, targetTime - time, !rolling);
+        }
+
+        time = targetTime;
+    }
+
+    /** Helper function that changes the velocity as the ball bounces off a surface. */
+    private void bounce(ContactType type) {
+        switch (type) {
+            case GROUND:
+                state.pz = Ball.RADIUS;
+                state.vz *= Ball.BALL_GROUND_BOUNCINESS;
+                // Tiny bounces are ignored and the ball starts rolling instead
+                if (state.vz < Ball.MIN_BOUNCE_VELOCITY) {
+                    state.vz = 0;
+                    rolling = true;
+                }
+                break;
+            case SIDE_WALL:
+                state.vx *= Ball.BALL_WALL_BOUNCINESS;
+                break;
+            case END_WALL:
+                state.vy *= Ball.BALL_WALL_BOUNCINESS;
+                break;
+        }
+    }
+
+    /** Remember the current state as the latest bounce and find the next one. */
+    private void anchor() {
+        anchorTime = time;
+        anchor.set(state);
+
+        nextContactTime = Double.POSITIVE_INFINITY;
+        considerContact(PhysicsKernel.predictArrivalAtSideWall(state.px, state.vx, Ball.RADIUS), ContactType.SIDE_WALL);
+        considerContact(PhysicsKernel.predictArrivalAtEndWall(state.py, state.vy, Ball.RADIUS), ContactType.END_WALL);
+        if (!rolling) {
+            considerContact(PhysicsKernel.predictBallArrivalAtGround(state.pz, state.vz, state.az), ContactType.GROUND);
+        }
+    }
+
+    /** Helper function for {@link #anchor()} that keeps the earliest contact. */
+    private void considerContact(double timeTillContact, ContactType type) {
+        if (!Double.isNaN(timeTillContact) && time + timeTillContact < nextContactTime) {
+            nextContactTime = time + timeTillContact;
+            nextContactType = type;
+        }
+    }
+
+    /** @return the time elapsed since the start. */
+    public double getTime() {
+        return time;
+    }
+
+    public Vector3 getPosition() {
+        return state.getPosition();
+    }
+
+    public Vector3 getVelocity() {
+        return state.getVelocity();
+    }
+
+    public double getPositionX() {
+        return state.px;
+    }
+
+    public double getPositionY() {
+        return state.py;
+    }
+
+    public double getPositionZ() {
+        return state.pz;
+    }
+
+    public double getVelocityX() {
+        return state.vx;
+    }
+
+    public double getVelocityY() {
+        return state.vy;
+    }
+
+    public double getVelocityZ() {
+        return state.vz;
+    }
+
+    /** @return whether the ball is rolling on the ground and therefore not affected by gravity. */
+    public boolean isRolling() {
+        return rolling;
+    }
+
+    /** @return the bounces that has happened so far in chronological order. */
+    public List<Contact> getContacts() {
+        return Collections.unmodifiableList(contacts);
+    }
+
+    /** @return a new Rigidbody with the current state of the ball. */
+    public Rigidbody toRigidbody() {
+        return state.toRigidbody();
+    }
+}
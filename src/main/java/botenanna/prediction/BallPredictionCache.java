@@ -0,0 +1,74 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+
+/** <p>The BallPredictionCache keeps the latest BallTrajectory between ticks. When the ball flies freely, the
+ * trajectory predicted on one tick is still correct on the next tick, just shifted. So instead of predicting the path
+ * of the ball on every tick, the incoming ball is compared to where the cached trajectory expected it to be at the
+ * elapsed game time. If the deviation is within tolerance the cached trajectory is shifted and reused. Otherwise
+ * something unpredicted happened, e.g. a touch, and a new trajectory is predicted.</p>
+ *
+ * <p>The cache is safe to share between bots running in the same process, since they see the same ball.</p> */
+public class BallPredictionCache {
+
+    public static final double POSITION_TOLERANCE = 10;
+    public static final double VELOCITY_TOLERANCE = 25;
+    /** A new trajectory is predicted when less than this many seconds of the cached trajectory are left. */
+    public static final double MIN_REMAINING_HORIZON = 3;
+
+    private BallTrajectory trajectory;
+    private double trajectoryGameTime;
+
+    private long hits;
+    private long misses;
+
+    /** @return a BallTrajectory starting with the given ball at {@code gameTime}. The cached trajectory is reused if
+     * it predicted the ball within tolerance, otherwise a new one is predicted and cached.
+     * @param gameTime the elapsed game time in seconds, e.g. {@code packet.gameInfo().secondsElapsed()}. */
+    public synchronized BallTrajectory get(Rigidbody ball, double gameTime) {
+        if (trajectory != null) {
+            double elapsed = gameTime - trajectoryGameTime;
+            if (elapsed >= 0 && trajectory.getDuration() - elapsed >= MIN_REMAINING_HORIZON && isWithinTolerance(ball, elapsed)) {
+                hits++;
+                return trajectory.shift(elapsed);
+            }
+        }
+
+        misses++;
+        trajectory = new BallTrajectory(ball);
+        trajectoryGameTime = gameTime;
+        return trajectory;
+    }
+
+    /** Helper function that compares the ball with the cached trajectory {@code elapsed} seconds after it started. */
+    private boolean isWithinTolerance(Rigidbody ball, double elapsed) {
+        Vector3 expectedPosition = trajectory.getPosition(elapsed);
+        if (expectedPosition.getDistanceToSqr(ball.getPosition()) > POSITION_TOLERANCE * POSITION_TOLERANCE) return false;
+
+        Vector3 expectedVelocity = trajectory.getVelocity(elapsed);
+        return expectedVelocity.getDistanceToSqr(ball.getVelocity()) <= VELOCITY_TOLERANCE * VELOCITY_TOLERANCE;
+    }
+
+    /** Forget the cached trajectory and reset the counters. */
+    public synchronized void clear() {
+        trajectory = null;
+        hits = 0;
+        misses = 0;
+    }
+
+    /** @return the number of times the cached trajectory was reused. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return the number of times a new trajectory had to be predicted. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return the fraction of requests where the cached trajectory was reused, or 0 if nothing has been requested. */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : hits / (double) total;
+    }
+}
@@ -0,0 +1,189 @@
+package botenanna.prediction;
+
+import botenanna.math.RLMath;
+import botenanna.math.Vector3;
+
+/** <p>The BallTrajectory is a prediction of where the ball is going. The ball's path is sampled once and the samples
+ * are stored in primitive arrays, so anything that needs to know where the ball will be can look it up in constant
+ * time instead of stepping the ball from time zero again.</p>
+ *
+ * <p>The samples are tiered: the near future, where precision matters, is sampled at the game's tick rate, while the
+ * far future is sampled more coarsely, see {@link #TIER_ENDS} and {@link #TIER_STEPSIZES}. The tiers are hidden
+ * behind the lookups.</p>
+ *
+ * <p>A BallTrajectory should be created once per GameTickPacket and shared. A trajectory for a point in the future
+ * can be obtained through {@link #shift(double)}, which reuses the samples.</p>
+ *
+ * <p>Times are relative to the start of the trajectory. Between samples the position and velocity is linearly
+ * interpolated. The samples are taken from a {@link PiecewiseBallTrajectory}, which is also available for exact
+ * queries through {@link #getSegments()}. When the ball bounces between two samples, or the time is after the last
+ * sample, the segments are used.</p> */
+public class BallTrajectory {
+
+    public static final double STEPSIZE = 1 / 120d;
+    public static final double HORIZON = 6;
+    /** The time each tier of samples ends. The last tier ends at the horizon. */
+    public static final double[] TIER_ENDS = {1, 3, Double.POSITIVE_INFINITY};
+    /** The time between samples in each tier. */
+    public static final double[] TIER_STEPSIZES = {STEPSIZE, 1 / 30d, 1 / 10d};
+
+    private final PiecewiseBallTrajectory segments;
+    private final double[] px;
+    private final double[] py;
+    private final double[] pz;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] vz;
+    private final int[] segmentIndexes;
+    private final int count;
+
+    // Where each tier starts in time and in the sample arrays
+    private final double[] tierStartTimes;
+    private final int[] tierStartIndexes;
+    private final int tierCount;
+
+    private final double timeOffset;
+
+    /** Predict the path of a ball {@link #HORIZON} seconds into the future. */
+    public BallTrajectory(Rigidbody ball) {
+        this(ball, HORIZON);
+    }
+
+    /** Predict the path of a ball {@code horizon} seconds into the future. The segments used to sample the path
+     * covers at least {@link PiecewiseBallTrajectory#DEFAULT_HORIZON} seconds.
+     * @param horizon must be zero or positive. */
+    public BallTrajectory(Rigidbody ball, double horizon) {
+        this(new PiecewiseBallTrajectory(ball, Math.max(horizon, PiecewiseBallTrajectory.DEFAULT_HORIZON)), horizon);
+    }
+
+    /** Sample the path described by {@code segments} {@code horizon} seconds into the future.
+     * @param horizon must be zero or positive and no longer than the duration of the segments. */
+    public BallTrajectory(PiecewiseBallTrajectory segments, double horizon) {
+        if (horizon < 0) throw new IllegalArgumentException("Horizon must be zero or positive.");
+        if (horizon > segments.getDuration()) throw new IllegalArgumentException("Horizon is longer than the segments.");
+
+        this.segments = segments;
+
+        // Find the number of intervals in each tier. Tiers ending after the horizon are cut
+        tierStartTimes = new double[TIER_ENDS.length];
+        tierStartIndexes = new int[TIER_ENDS.length];
+        int[] tierIntervals = new int[TIER_ENDS.length];
+        int tiers = 0;
+        int intervals = 0;
+        double tierStart = 0;
+        while (tiers < TIER_ENDS.length && (tiers == 0 || tierStart < horizon)) {
+            double tierEnd = Math.min(TIER_ENDS[tiers], horizon);
+            tierStartTimes[tiers] = tierStart;
+            tierStartIndexes[tiers] = intervals;
+            tierIntervals[tiers] = (int) Math.floor((tierEnd - tierStart) / TIER_STEPSIZES[tiers] + 1e-9);
+            intervals += tierIntervals[tiers];
+            tierStart += tierIntervals[tiers] * TIER_STEPSIZES[tiers];
+            tiers++;
+            // A horizon that does not fit the step size of the tier ends the sampling
+            if (tierEnd == horizon) break;
+        }
+        tierCount = tiers;
+
+        count = intervals + 1;
+        px = new double[count];
+        py = new double[count];
+        pz = new double[count];
+        vx = new double[count];
+        vy = new double[count];
+        vz = new double[count];
+        segmentIndexes = new int[count];
+        timeOffset = 0;
+
+        for (int k = 0; k < tierCount; k++) {
+            // The last tier includes the final sample
+            int samples = k == tierCount - 1 ? tierIntervals[k] + 1 : tierIntervals[k];
+            segments.sample(tierStartTimes[k], TIER_STEPSIZES[k], samples, tierStartIndexes[k], px, py, pz, vx, vy, vz, segmentIndexes);
+        }
+    }
+
+    /** Constructor for shifted trajectories. The samples are shared. */
+    private BallTrajectory(BallTrajectory original, double time) {
+        segments = original.segments.shift(time);
+        px = original.px;
+        py = original.py;
+        pz = original.pz;
+        vx = original.vx;
+        vy = original.vy;
+        vz = original.vz;
+        segmentIndexes = original.segmentIndexes;
+        count = original.count;
+        tierStartTimes = original.tierStartTimes;
+        tierStartIndexes = original.tierStartIndexes;
+        tierCount = original.tierCount;
+        timeOffset = original.timeOffset + time;
+    }
+
+    /** @return a BallTrajectory that starts {@code time} seconds later than this one. No simulation is done and the
+     * samples are shared between the two trajectories.
+     * @param time must be zero or positive. */
+    public BallTrajectory shift(double time) {
+        if (time < 0) throw new IllegalArgumentException("Time must be zero or positive.");
+        return new BallTrajectory(this, time);
+    }
+
+    /** @return the position of the ball {@code time} seconds after the start of this trajectory. */
+    public Vector3 getPosition(double time) {
+        double t = toSampleIndex(time);
+        int i = (int) t;
+        if (t >= count - 1 || segmentIndexes[i] != segmentIndexes[i + 1]) return segments.getPosition(time);
+        double frac = t - i;
+        return new Vector3(
+                RLMath.lerp(px[i], px[i + 1], frac),
+                RLMath.lerp(py[i], py[i + 1], frac),
+                RLMath.lerp(pz[i], pz[i + 1], frac));
+    }
+
+    /** @return the velocity of the ball {@code time} seconds after the start of this trajectory. */
+    public Vector3 getVelocity(double time) {
+        double t = toSampleIndex(time);
+        int i = (int) t;
+        if (t >= count - 1 || segmentIndexes[i] != segmentIndexes[i + 1]) return segments.getVelocity(time);
+        double frac = t - i;
+        return new Vector3(
+                RLMath.lerp(vx[i], vx[i + 1], frac),
+                RLMath.lerp(vy[i], vy[i + 1], frac),
+                RLMath.lerp(vz[i], vz[i + 1], frac));
+    }
+
+    /** @return a new Rigidbody describing the ball {@code time} seconds after the start of this trajectory. */
+    public Rigidbody getBall(double time) {
+        Rigidbody ball = new Rigidbody();
+        ball.setPosition(getPosition(time));
+        ball.setVelocity(getVelocity(time));
+        ball.setAcceleration(segments.getAcceleration());
+        return ball;
+    }
+
+    /** @return the segments this trajectory was sampled from, starting at the same moment as this trajectory. Use
+     * them when the exact position is needed. */
+    public PiecewiseBallTrajectory getSegments() {
+        return segments;
+    }
+
+    /** @return the number of samples shared by this trajectory and those shifted from it. */
+    public int getSampleCount() {
+        return count;
+    }
+
+    /** @return the number of seconds that are covered by samples, counted from the start of this trajectory. */
+    public double getDuration() {
+        int last = tierCount - 1;
+        double end = tierStartTimes[last] + (count - 1 - tierStartIndexes[last]) * TIER_STEPSIZES[last];
+        return Math.max(0, end - timeOffset);
+    }
+
+    /** Convert a time relative to the start of this trajectory to a fractional sample index. */
+    private double toSampleIndex(double time) {
+        if (time < 0) throw new IllegalArgumentException("Time must be zero or positive.");
+        double sampleTime = time + timeOffset;
+        int k = tierCount - 1;
+        while (k > 0 && sampleTime < tierStartTimes[k]) k--;
+        return tierStartIndexes[k] + (sampleTime - tierStartTimes[k]) / TIER_STEPSIZES[k];
+    }
+
+}
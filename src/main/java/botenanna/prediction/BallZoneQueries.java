@@ -0,0 +1,18 @@
+package botenanna.prediction;
+
+import botenanna.math.Zone;
+
+/** Queries about when the ball is inside a {@link Zone}. The queries are answered from the segments of a
+ * {@link PiecewiseBallTrajectory}, so no simulation is needed. Times are relative to the start of the trajectory. */
+public class BallZoneQueries {
+
+    /** @return whether the ball is inside the zone {@code time} seconds after the start of the trajectory. */
+    public static boolean isInside(PiecewiseBallTrajectory trajectory, Zone zone, double time) {
+        return zone.contains(trajectory.getPosition(time));
+    }
+
+    /** @return whether the ball is inside the zone {@code time} seconds after the start of the trajectory. */
+    public static boolean isInside(BallTrajectory trajectory, Zone zone, double time) {
+        return isInside(trajectory.getSegments(), zone, time);
+    }
+}
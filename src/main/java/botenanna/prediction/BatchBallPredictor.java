@@ -0,0 +1,207 @@
+package botenanna.prediction;
+
+import botenanna.game.Arena;
+import botenanna.game.Ball;
+import botenanna.math.Vector3;
+
+/** <p>The BatchBallPredictor moves many hypothetical balls forwards in time at once, e.g. to evaluate the outcomes of
+ * several possible shots. Each ball is a lane and the state of all lanes is stored in primitive arrays, one array per
+ * component.</p>
+ *
+ * <p>An {@link #advance(double)} moves all lanes in a straight loop without branches, which the JIT can vectorise.
+ * Afterwards the lanes that bounced during the step are found and moved again from their previous state with
+ * {@link PhysicsKernel#stepBall(BodyState, boolean, double)}, which handles the bounces exactly. Most lanes do not
+ * bounce in a single step, so that loop stays short.</p> */
+public class BatchBallPredictor {
+
+    private static final double WALL_X = Arena.WIDTH / 2 - Ball.RADIUS;
+    private static final double WALL_Y = Arena.LENGTH / 2 - Ball.RADIUS;
+
+    private final int size;
+
+    private final double[] px, py, pz;
+    private final double[] vx, vy, vz;
+    private final double[] ax, ay, az;
+    /** The acceleration along the z-axis including gravity, which is 0 for rolling lanes. */
+    private final double[] gz;
+    private final boolean[] rolling;
+
+    // The state before the latest step, used to redo lanes that bounced
+    private final double[] prevPx, prevPy, prevPz;
+    private final double[] prevVx, prevVy, prevVz;
+    private final BodyState scratch = new BodyState();
+
+    /** Create a BatchBallPredictor with {@code size} lanes. All lanes start as a ball resting at the centre of the
+     * field. */
+    public BatchBallPredictor(int size) {
+        if (size < 0) throw new IllegalArgumentException("Size must be zero or positive.");
+
+        this.size = size;
+        px = new double[size];
+        py = new double[size];
+        pz = new double[size];
+        vx = new double[size];
+        vy = new double[size];
+        vz = new double[size];
+        ax = new double[size];
+        ay = new double[size];
+        az = new double[size];
+        gz = new double[size];
+        rolling = new boolean[size];
+        prevPx = new double[size];
+        prevPy = new double[size];
+        prevPz = new double[size];
+        prevVx = new double[size];
+        prevVy = new double[size];
+        prevVz = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            set(i, 0, 0, Ball.RADIUS, 0, 0, 0);
+        }
+    }
+
+    /** Set the state of a lane to be identical to a ball. */
+    public void set(int lane, Rigidbody ball) {
+        scratch.set(ball);
+        set(lane, scratch);
+    }
+
+    /** Set the state of a lane to be identical to a BodyState. */
+    public void set(int lane, BodyState ball) {
+        set(lane, ball.px, ball.py, ball.pz, ball.vx, ball.vy, ball.vz);
+        ax[lane] = ball.ax;
+        ay[lane] = ball.ay;
+        az[lane] = ball.az;
+        updateGravity(lane);
+    }
+
+    /** Set the position and velocity of a lane. The acceleration is set to zero. */
+    public void set(int lane, double positionX, double positionY, double positionZ, double velocityX, double velocityY, double velocityZ) {
+        px[lane] = positionX;
+        py[lane] = positionY;
+        pz[lane] = positionZ;
+        vx[lane] = velocityX;
+        vy[lane] = velocityY;
+        vz[lane] = velocityZ;
+        ax[lane] = 0;
+        ay[lane] = 0;
+        az[lane] = 0;
+
+        // A ball on the ground that is not moving upwards is rolling
+        rolling[lane] = positionZ <= Ball.RADIUS && velocityZ <= 0;
+        if (rolling[lane]) vz[lane] = 0;
+        updateGravity(lane);
+    }
+
+    /** Move all lanes {@code time} seconds forwards. Bounces are handled per lane.
+     * @param time must be zero or positive. */
+    public void advance(double time) {
+        if (time < 0) throw new IllegalArgumentException("Time must be zero or positive.");
+
+        System.arraycopy(px, 0, prevPx, 0, size);
+        System.arraycopy(py, 0, prevPy, 0, size);
+        System.arraycopy(pz, 0, prevPz, 0, size);
+        System.arraycopy(vx, 0, prevVx, 0, size);
+        System.arraycopy(vy, 0, prevVy, 0, size);
+        System.arraycopy(vz, 0, prevVz, 0, size);
+
+        // Move every lane as if nothing is in the way
+        double halfTimeSqr = 0.5 * time * time;
+        for (int i = 0; i < size; i++) {
+            px[i] += ax[i] * halfTimeSqr + vx[i] * time;
+            py[i] += ay[i] * halfTimeSqr + vy[i] * time;
+            pz[i] += gz[i] * halfTimeSqr + vz[i] * time;
+            vx[i] += ax[i] * time;
+            vy[i] += ay[i] * time;
+            vz[i] += gz[i] * time;
+        }
+
+        // Redo the lanes that went through a wall or the ground. Lanes that accelerate upwards or sideways may have
+        // gone through and come back within the step, so those are always redone
+        for (int i = 0; i < size; i++) {
+            boolean bounced = (!rolling[i] && pz[i] < Ball.RADIUS) || Math.abs(px[i]) > WALL_X || Math.abs(py[i]) > WALL_Y;
+            if (bounced || ax[i] != 0 || ay[i] != 0 || gz[i] > 0) {
+                redo(i, time);
+            }
+        }
+    }
+
+    /** Helper function that moves a lane from its previous state with bounces. */
+    private void redo(int lane, double time) {
+        scratch.px = prevPx[lane];
+        scratch.py = prevPy[lane];
+        scratch.pz = prevPz[lane];
+        scratch.vx = prevVx[lane];
+        scratch.vy = prevVy[lane];
+        scratch.vz = prevVz[lane];
+        scratch.ax = ax[lane];
+        scratch.ay = ay[lane];
+        scratch.az = az[lane];
+
+        rolling[lane] = PhysicsKernel.stepBall(scratch, rolling[lane], time);
+
+        px[lane] = scratch.px;
+        py[lane] = scratch.py;
+        pz[lane] = scratch.pz;
+        vx[lane] = scratch.vx;
+        vy[lane] = scratch.vy;
+        vz[lane] = scratch.vz;
+        updateGravity(lane);
+    }
+
+    /** Helper function that updates the z-acceleration of a lane after its rolling state changed. */
+    private void updateGravity(int lane) {
+        gz[lane] = rolling[lane] ? az[lane] : az[lane] + PhysicsKernel.GRAVITY_Z;
+    }
+
+    /** @return the number of lanes. */
+    public int size() {
+        return size;
+    }
+
+    public double getPositionX(int lane) {
+        return px[lane];
+    }
+
+    public double getPositionY(int lane) {
+        return py[lane];
+    }
+
+    public double getPositionZ(int lane) {
+        return pz[lane];
+    }
+
+    public double getVelocityX(int lane) {
+        return vx[lane];
+    }
+
+    public double getVelocityY(int lane) {
+        return vy[lane];
+    }
+
+    public double getVelocityZ(int lane) {
+        return vz[lane];
+    }
+
+    public Vector3 getPosition(int lane) {
+        return new Vector3(px[lane], py[lane], pz[lane]);
+    }
+
+    public Vector3 getVelocity(int lane) {
+        return new Vector3(vx[lane], vy[lane], vz[lane]);
+    }
+
+    /** @return whether the ball in a lane is rolling on the ground and therefore not affected by gravity. */
+    public boolean isRolling(int lane) {
+        return rolling[lane];
+    }
+
+    /** @return a new Rigidbody with the current state of a lane. */
+    public Rigidbody getBall(int lane) {
+        Rigidbody ball = new Rigidbody();
+        ball.setPosition(getPosition(lane));
+        ball.setVelocity(getVelocity(lane));
+        ball.setAcceleration(new Vector3(ax[lane], ay[lane], az[lane]));
+        return ball;
+    }
+}
@@ -0,0 +1,70 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+
+/** A mutable physical state made of primitives: position, velocity and acceleration. It is the counterpart of a
+ * {@link Rigidbody} used by {@link PhysicsKernel}, where a state can be moved around without allocating new
+ * Vector3s. The acceleration excludes gravity, like a Rigidbody's. */
+public class BodyState {
+
+    public double px, py, pz;
+    public double vx, vy, vz;
+    public double ax, ay, az;
+
+    public BodyState() {
+    }
+
+    public BodyState(Rigidbody body) {
+        set(body);
+    }
+
+    /** Set this BodyState to be identical to a Rigidbody. */
+    public void set(Rigidbody body) {
+        Vector3 pos = body.getPosition();
+        Vector3 vel = body.getVelocity();
+        Vector3 acc = body.getAcceleration();
+        px = pos.x;
+        py = pos.y;
+        pz = pos.z;
+        vx = vel.x;
+        vy = vel.y;
+        vz = vel.z;
+        ax = acc.x;
+        ay = acc.y;
+        az = acc.z;
+    }
+
+    /** Set this BodyState to be identical to another BodyState. */
+    public void set(BodyState other) {
+        px = other.px;
+        py = other.py;
+        pz = other.pz;
+        vx = other.vx;
+        vy = other.vy;
+        vz = other.vz;
+        ax = other.ax;
+        ay = other.ay;
+        az = other.az;
+    }
+
+    public Vector3 getPosition() {
+        return new Vector3(px, py, pz);
+    }
+
+    public Vector3 getVelocity() {
+        return new Vector3(vx, vy, vz);
+    }
+
+    public Vector3 getAcceleration() {
+        return new Vector3(ax, ay, az);
+    }
+
+    /** @return a new Rigidbody with the position, velocity and acceleration of this state. */
+    public Rigidbody toRigidbody() {
+        Rigidbody body = new Rigidbody();
+        body.setPosition(getPosition());
+        body.setVelocity(getVelocity());
+        body.setAcceleration(getAcceleration());
+        return body;
+    }
+}
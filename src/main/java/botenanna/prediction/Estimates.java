@@ -3,11 +3,20 @@ package botenanna.prediction;
 import botenanna.game.Car;
 import botenanna.math.Vector3;
 
+import java.util.Arrays;
+
 public class Estimates {
 
+    public static final double SCAN_STEPSIZE = 1 / 16d;
+    public static final double BISECTION_PRECISION = 1 / 512d;
+    /** The step size used to search for the ball beyond the segments of a trajectory. */
+    public static final double SEARCH_STEPSIZE = 1 / 4d;
+
     /** Returns an estimate of how long time it will take for a car to reach a ball. A speed parameter describes how
      * much effort the car expects to put into getting there. If speed = 1, the car is expected to boost straight to
      * the ball. If speed = 0.62, the car is expected to drive straight but without boost.
+     * The ball is stepped in halving steps, and the latest time found where the car cannot yet reach the ball is
+     * returned, so the estimate is a little early.
      * @param speed a double between 0.1 and 1 that describes how much effort is expected to be used to reach ball. */
     public static double timeTillCarCanHitBall(Vector3 carPosition, Rigidbody ball, double speed) {
         if (speed < 0.05) throw new IllegalArgumentException("Speed is too small");
@@ -36,4 +45,117 @@ public class Estimates {
 
         return time;
     }
+
+    /** Returns an estimate of how long time it will take for a car to reach a ball, like
+     * {@link #timeTillCarCanHitBall(Vector3, Rigidbody, double)}, but the ball's positions are taken from the segments
+     * of a precomputed BallTrajectory, so the ball is not simulated again. The earliest time where the car can reach
+     * the ball is returned, see {@link #timesTillCarCanHitBall(Vector3, PiecewiseBallTrajectory, double...)}.
+     * @param speed a double between 0.1 and 1 that describes how much effort is expected to be used to reach ball. */
+    public static double timeTillCarCanHitBall(Vector3 carPosition, BallTrajectory trajectory, double speed) {
+        return timesTillCarCanHitBall(carPosition, trajectory.getSegments(), speed)[0];
+    }
+
+    /** Returns estimates of how long time it will take for a car to reach a ball, one for each of the given speeds.
+     * See {@link #timeTillCarCanHitBall(Vector3, Rigidbody, double)} for the meaning of speed. The segments are walked
+     * once with steps of {@link #SCAN_STEPSIZE} seconds, where the distance to the ball is compared to the car's reach
+     * for every speed. When the car can reach the ball between two steps, the exact time is found by bisection.
+     * If a speed never reaches the ball within the segments, the search continues beyond them in larger steps and is
+     * refined the same way. Either way the result is the earliest time where the car can reach the ball, within
+     * {@link #BISECTION_PRECISION} seconds.
+     * @param speeds doubles between 0.1 and 1 that describes how much effort is expected to be used to reach ball.
+     * @return the times in the same order as the speeds. */
+    public static double[] timesTillCarCanHitBall(Vector3 carPosition, PiecewiseBallTrajectory segments, double... speeds) {
+        for (double speed : speeds) {
+            if (speed < 0.05) throw new IllegalArgumentException("Speed is too small");
+        }
+
+        double[] times = new double[speeds.length];
+        int unresolved = speeds.length;
+        Arrays.fill(times, Double.NaN);
+
+        double duration = segments.getDuration();
+        double prevTime = 0;
+        int segment = segments.advanceSegmentIndex(0, 0);
+        double dist2 = distanceToBallSqr(carPosition, segments, segment, 0);
+        if (dist2 == 0) {
+            Arrays.fill(times, 0);
+            return times;
+        }
+
+        for (int step = 1; unresolved > 0 && prevTime < duration; step++) {
+            double time = Math.min(step * SCAN_STEPSIZE, duration);
+            segment = segments.advanceSegmentIndex(segment, time);
+            dist2 = distanceToBallSqr(carPosition, segments, segment, time);
+
+            for (int s = 0; s < speeds.length; s++) {
+                if (!Double.isNaN(times[s])) continue;
+                double carReach = time * speeds[s] * Car.MAX_VELOCITY_BOOST;
+                if (dist2 <= carReach * carReach) {
+                    times[s] = bisectTimeTillCarCanHitBall(carPosition, segments, speeds[s], prevTime, time);
+                    unresolved--;
+                }
+            }
+
+            prevTime = time;
+        }
+
+        // Some speeds are too slow to reach the ball within the segments
+        for (int s = 0; unresolved > 0 && s < speeds.length; s++) {
+            if (Double.isNaN(times[s])) {
+                times[s] = searchTimeTillCarCanHitBall(carPosition, segments, speeds[s], duration);
+                unresolved--;
+            }
+        }
+
+        return times;
+    }
+
+    /** Helper function that finds the time the car can reach the ball, when it is known to be between
+     * {@code tooEarly} and {@code earlyEnough}. */
+    private static double bisectTimeTillCarCanHitBall(Vector3 carPosition, PiecewiseBallTrajectory segments, double speed, double tooEarly, double earlyEnough) {
+        while (earlyEnough - tooEarly > BISECTION_PRECISION) {
+            double time = (tooEarly + earlyEnough) / 2;
+            double carReach = time * speed * Car.MAX_VELOCITY_BOOST;
+            if (distanceToBallSqr(carPosition, segments, time) <= carReach * carReach) {
+                earlyEnough = time;
+            } else {
+                tooEarly = time;
+            }
+        }
+        return earlyEnough;
+    }
+
+    /** Helper function for when the ball cannot be reached within the segments. Steps forwards from {@code time}
+     * in steps of {@link #SEARCH_STEPSIZE} seconds until the car can reach the ball, and then finds the earliest time
+     * by bisection. */
+    private static double searchTimeTillCarCanHitBall(Vector3 carPosition, PiecewiseBallTrajectory segments, double speed, double time) {
+        double carReach;
+        double dist2;
+
+        do {
+            time += SEARCH_STEPSIZE;
+            carReach = time * speed * Car.MAX_VELOCITY_BOOST;
+            dist2 = distanceToBallSqr(carPosition, segments, time);
+        } while (dist2 > carReach * carReach);
+
+        return bisectTimeTillCarCanHitBall(carPosition, segments, speed, time - SEARCH_STEPSIZE, time);
+    }
+
+    /** Helper function that returns the squared distance from the car to the ball at any time, also beyond the
+     * segments. */
+    private static double distanceToBallSqr(Vector3 carPosition, PiecewiseBallTrajectory segments, double time) {
+        if (time > segments.getDuration()) {
+            return carPosition.getDistanceToSqr(segments.getPosition(time).scale(1, 1, 4));
+        }
+        return distanceToBallSqr(carPosition, segments, segments.getSegmentIndex(time), time);
+    }
+
+    /** Helper function that returns the squared distance from the car to the ball, where height counts four times as
+     * much, like in {@link #timeTillCarCanHitBall(Vector3, Rigidbody, double)}. No objects are allocated. */
+    private static double distanceToBallSqr(Vector3 carPosition, PiecewiseBallTrajectory segments, int segment, double time) {
+        double dx = carPosition.x - segments.getPositionX(segment, time);
+        double dy = carPosition.y - segments.getPositionY(segment, time);
+        double dz = carPosition.z - 4 * segments.getPositionZ(segment, time);
+        return dx * dx + dy * dy + dz * dz;
+    }
 }
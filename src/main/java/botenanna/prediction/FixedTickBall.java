@@ -0,0 +1,100 @@
+package botenanna.prediction;
+
+import botenanna.game.Ball;
+import botenanna.math.Vector3;
+
+/** A ball moved in fixed-timestep mode, see {@link FixedTimestep}. It knows which tick it is at, and two
+ * FixedTickBalls are equal when they are at the same tick with the exact same state, so they can be used as keys
+ * when caching predictions. */
+public strictfp class FixedTickBall {
+
+    private final BodyState state;
+    private boolean rolling;
+    private long tick;
+
+    /** Create a FixedTickBall with the state of the given ball at {@code tick}. The ball is not changed. */
+    public FixedTickBall(Rigidbody ball, long tick) {
+        this.state = new BodyState(ball);
+        this.tick = tick;
+
+        // A ball on the ground that is not moving upwards is rolling
+        if (state.pz <= Ball.RADIUS && state.vz <= 0) {
+            rolling = true;
+            state.vz = 0;
+        }
+    }
+
+    /** Copy constructor. */
+    public FixedTickBall(FixedTickBall other) {
+        this.state = new BodyState();
+        this.state.set(other.state);
+        this.rolling = other.rolling;
+        this.tick = other.tick;
+    }
+
+    /** Move the ball {@code ticks} ticks forwards.
+     * @param ticks must be zero or positive. */
+    public void advance(int ticks) {
+        rolling = FixedTimestep.stepBall(state, rolling, ticks);
+        tick += ticks;
+    }
+
+    /** Move the ball forwards until it reaches {@code targetTick}.
+     * @param targetTick must not be before the current tick, nor more than {@link Integer#MAX_VALUE} ticks after it. */
+    public void advanceTo(long targetTick) {
+        if (targetTick < tick) throw new IllegalArgumentException("Cannot move backwards in time.");
+        if (targetTick - tick > Integer.MAX_VALUE) throw new IllegalArgumentException("Cannot move that many ticks at once.");
+        advance((int) (targetTick - tick));
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public Vector3 getPosition() {
+        return state.getPosition();
+    }
+
+    public Vector3 getVelocity() {
+        return state.getVelocity();
+    }
+
+    /** @return whether the ball is rolling on the ground and therefore not affected by gravity. */
+    public boolean isRolling() {
+        return rolling;
+    }
+
+    /** @return a hash of the exact state of the ball, not including the tick. */
+    public long getStateHash() {
+        return FixedTimestep.hash(state, rolling);
+    }
+
+    /** @return a new Rigidbody with the current state of the ball. */
+    public Rigidbody toRigidbody() {
+        return state.toRigidbody();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FixedTickBall other = (FixedTickBall) o;
+        return tick == other.tick
+                && rolling == other.rolling
+                && Double.doubleToLongBits(state.px) == Double.doubleToLongBits(other.state.px)
+                && Double.doubleToLongBits(state.py) == Double.doubleToLongBits(other.state.py)
+                && Double.doubleToLongBits(state.pz) == Double.doubleToLongBits(other.state.pz)
+                && Double.doubleToLongBits(state.vx) == Double.doubleToLongBits(other.state.vx)
+                && Double.doubleToLongBits(state.vy) == Double.doubleToLongBits(other.state.vy)
+                && Double.doubleToLongBits(state.vz) == Double.doubleToLongBits(other.state.vz)
+                && Double.doubleToLongBits(state.ax) == Double.doubleToLongBits(other.state.ax)
+                && Double.doubleToLongBits(state.ay) == Double.doubleToLongBits(other.state.ay)
+                && Double.doubleToLongBits(state.az) == Double.doubleToLongBits(other.state.az);
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = 31 * getStateHash() + tick;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
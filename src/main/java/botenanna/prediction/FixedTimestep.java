@@ -0,0 +1,75 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.Situation;
+
+/** <p>Physics in fixed-timestep mode. Here time is an integer number of game ticks of {@link #TICK} seconds, matching
+ * the game's 120 Hz tick, and everything is moved one tick at a time. Moving 10 ticks is therefore exactly the same as
+ * moving 4 and then 6.</p>
+ *
+ * <p>Only the ball is deterministic: {@link #stepBall(BodyState, boolean, int)} and {@link FixedTickBall} go through
+ * the strictfp {@link PhysicsKernel}, so the same start state always gives the same result, bit for bit. This makes
+ * ball predictions safe to cache by (state hash, tick) and lets recorded predictions be compared for exact equality.
+ * {@link #simulate(Situation, ActionSet, int)} is stepped per tick as well, but goes through {@link Simulation} and
+ * {@link botenanna.math.Vector3}, which use functions such as {@link Math#pow(double, double)} and
+ * {@link Math#cos(double)} whose results may differ in the last bit between platforms.</p>
+ *
+ * <p>The methods taking a step size in seconds, like {@link Physics#stepBall(Rigidbody, double)} and
+ * {@link Simulation#simulate(Situation, double, ActionSet)}, give results that depend on how time is divided into
+ * steps.</p> */
+public strictfp class FixedTimestep {
+
+    public static final int TICKS_PER_SECOND = 120;
+    public static final double TICK = 1d / TICKS_PER_SECOND;
+
+    /** @return the number of seconds in {@code ticks} ticks. */
+    public static double toSeconds(long ticks) {
+        return ticks / (double) TICKS_PER_SECOND;
+    }
+
+    /** @return the number of whole ticks closest to {@code seconds}. */
+    public static long toTicks(double seconds) {
+        return Math.round(seconds * TICKS_PER_SECOND);
+    }
+
+    /** Move a ball {@code ticks} ticks forwards, one tick at a time, including bounces.
+     * @param rolling whether the ball is rolling on the ground at the start.
+     * @param ticks must be zero or positive.
+     * @return whether the ball is rolling at the end. */
+    public static boolean stepBall(BodyState ball, boolean rolling, int ticks) {
+        if (ticks < 0) throw new IllegalArgumentException("Ticks must be zero or positive.");
+
+        for (int i = 0; i < ticks; i++) {
+            rolling = PhysicsKernel.stepBall(ball, rolling, TICK);
+        }
+        return rolling;
+    }
+
+    /** Simulate a situation {@code ticks} ticks forwards, one tick at a time, while the given action is used. Unlike
+     * the ball, the result is not guaranteed to be the same bit for bit on every platform.
+     * @param ticks must be zero or positive.
+     * @return a new simulated situation, or the given situation if {@code ticks} is 0. */
+    public static Situation simulate(Situation situation, ActionSet action, int ticks) {
+        if (ticks < 0) throw new IllegalArgumentException("Ticks must be zero or positive.");
+
+        for (int i = 0; i < ticks; i++) {
+            situation = Simulation.simulate(situation, TICK, action);
+        }
+        return situation;
+    }
+
+    /** @return a hash of the exact bits of a ball's state. Two states have the same hash if they are identical. */
+    public static long hash(BodyState ball, boolean rolling) {
+        long hash = rolling ? 1 : 0;
+        hash = 31 * hash + Double.doubleToLongBits(ball.px);
+        hash = 31 * hash + Double.doubleToLongBits(ball.py);
+        hash = 31 * hash + Double.doubleToLongBits(ball.pz);
+        hash = 31 * hash + Double.doubleToLongBits(ball.vx);
+        hash = 31 * hash + Double.doubleToLongBits(ball.vy);
+        hash = 31 * hash + Double.doubleToLongBits(ball.vz);
+        hash = 31 * hash + Double.doubleToLongBits(ball.ax);
+        hash = 31 * hash + Double.doubleToLongBits(ball.ay);
+        hash = 31 * hash + Double.doubleToLongBits(ball.az);
+        return hash;
+    }
+}
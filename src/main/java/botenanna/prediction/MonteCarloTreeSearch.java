@@ -0,0 +1,429 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.Situation;
+import botenanna.intentions.IntentionFunction;
+import botenanna.math.SteppedTimeLine;
+import botenanna.math.TimeLine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** <p>The MonteCarloTreeSearch is a {@link Planner} that grows a search tree one node per iteration. Each iteration
+ * walks down the tree by UCT, picking children that have led to good intention values while still trying those that
+ * have been visited rarely, and adds a child to the first node that may get another child. The number of children a
+ * node may have grows with the square root of its visits (progressive widening), so the search reaches deep nodes
+ * even though every node has dozens of actions to choose from. The game is deterministic, so a node remembers the
+ * best intention value found below it instead of an average, and no random rollouts are done.</p>
+ *
+ * <p>The search is anytime by design: every iteration leaves a usable tree, so it runs until the time budget or the
+ * node budget runs out. The sequence towards the best node where the search ends, because of its depth or because
+ * the intention is fulfilled, is returned. If no such node has been found, the best values are followed from the
+ * root. Compared to {@link AStar} it spends its
+ * nodes on the most promising branches at every depth instead of on the best nodes overall, which lets it plan
+ * further ahead with the same budget.</p>
+ *
+ * <p>The tree is kept between searches. When a new search starts from a situation in the same cell as a node of the
+ * previous tree, see {@link StateQuantizer}, that node becomes the new root and its subtree is reused. The reused
+ * edges are simulated again from the new root and their intention values are evaluated again, since neither the car
+ * nor the intention is exactly the same.</p> */
+public class MonteCarloTreeSearch implements Planner {
+
+    public static final int DEFAULT_MAX_NODES = 20000;
+    /** The number of edges from the root to the leaves. */
+    public static final int DEFAULT_MAX_DEPTH = 8;
+    /** How far below the previous root a reusable node is looked for. */
+    public static final int REUSE_DEPTH = 2;
+    /** A node is reused if its car is in the same cell as the car of the new situation. */
+    public static final StateQuantizer REUSE_CELLS = StateQuantizer.DEFAULT;
+    public static final double EXPLORATION = 0.3;
+    /** A node with {@code n} visits may have {@code 1 + WIDENING * sqrt(n)} children. */
+    public static final double WIDENING = 0.5;
+
+    /** A node of the search tree. The successors are the ids of the actions that can follow the action taken. */
+    private static class Node {
+        public Node parent;
+        public final int actionTaken;
+        public final PlanningState state;
+        public int depth;
+        public final int[] successors;
+        public final List<Node> children = new ArrayList<>();
+        public double value;
+        public double bestValue;
+        public int visits;
+        public boolean terminal;
+        public boolean exhausted;
+
+        public Node(Node parent, int actionTaken, PlanningState state, int depth) {
+            this.parent = parent;
+            this.actionTaken = actionTaken;
+            this.state = state;
+            this.depth = depth;
+            this.successors = ActionCatalog.getSuccessors(actionTaken, state.midAir, state.boost > 0, state.hasDoubleJumped);
+        }
+
+        public boolean isFullyExpanded() {
+            return children.size() == successors.length;
+        }
+
+        /** @return whether the node may get another child now. */
+        public boolean canExpand() {
+            return !terminal && !isFullyExpanded() && children.size() < 1 + (int) (WIDENING * Math.sqrt(visits));
+        }
+    }
+
+    private final int maxNodes;
+    private final int maxDepth;
+    private int macroSteps = 1;
+
+    private Node root;
+    private Node bestTerminal;
+    private Class<?> rootIntention;
+    private int nodeCount;
+    private double minValue;
+    private double maxValue;
+
+    private boolean budgetExhausted;
+    private boolean deadlineHit;
+    private boolean treeReused;
+    private int expandedCount;
+    private int simulatedCount;
+    private int deepest;
+    private PlannerStats lastStats;
+
+    /** Create a MonteCarloTreeSearch that uses at most {@link #DEFAULT_MAX_NODES} nodes and plans
+     * {@link #DEFAULT_MAX_DEPTH} edges ahead. */
+    public MonteCarloTreeSearch() {
+        this(DEFAULT_MAX_NODES, DEFAULT_MAX_DEPTH);
+    }
+
+    /** Create a MonteCarloTreeSearch that uses at most {@code maxNodes} nodes and plans {@code maxDepth} edges ahead.
+     * @param maxNodes must be positive.
+     * @param maxDepth must be positive. */
+    public MonteCarloTreeSearch(int maxNodes, int maxDepth) {
+        if (maxNodes < 1) throw new IllegalArgumentException("Max nodes must be positive.");
+        if (maxDepth < 1) throw new IllegalArgumentException("Max depth must be positive.");
+
+        this.maxNodes = maxNodes;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public TimeLine<ActionSet> plan(Situation situation, IntentionFunction intention, double stepsize, double timeBudget) {
+        long startTime = System.nanoTime();
+        long timeBudgetNanos = (long) (timeBudget * 1_000_000); // Infinity becomes Long.MAX_VALUE
+        budgetExhausted = false;
+        deadlineHit = false;
+        minValue = Double.POSITIVE_INFINITY;
+        maxValue = Double.NEGATIVE_INFINITY;
+        bestTerminal = null;
+        expandedCount = 0;
+        simulatedCount = 0;
+        deepest = 0;
+
+        treeReused = reuseTree(situation, intention, stepsize);
+        if (!treeReused) {
+            root = new Node(null, ActionCatalog.NONE, new PlanningState(situation, stepsize * macroSteps), 0);
+            nodeCount = 1;
+            evaluate(root, intention);
+        }
+        rootIntention = intention.getClass();
+
+        while (!root.exhausted) {
+            // The root must have a child before the search can stop
+            if (!root.children.isEmpty()) {
+                if (System.nanoTime() - startTime >= timeBudgetNanos) {
+                    deadlineHit = true;
+                    break;
+                }
+                if (nodeCount >= maxNodes) {
+                    budgetExhausted = true;
+                    break;
+                }
+            }
+
+            // Cancelled?
+            if (Thread.currentThread().isInterrupted()) {
+                lastStats = createStats(null, startTime);
+                return null;
+            }
+
+            Node node = select(root);
+            if (!node.terminal && !node.isFullyExpanded()) {
+                node = expand(node, intention, stepsize);
+            }
+            backpropagate(node);
+        }
+
+        if (root.children.isEmpty()) {
+            lastStats = createStats(null, startTime);
+            return null;
+        }
+        Node best = getBestNode();
+        lastStats = createStats(best, startTime);
+        return toTimeLine(getSequence(best), stepsize);
+    }
+
+    /** Helper method that creates the stats of the search that just ended at the given node, or null if nothing was
+     * found. */
+    private PlannerStats createStats(Node result, long startTime) {
+        boolean forcedStop = result != null && result.depth >= maxDepth;
+        boolean deviationFulfilled = result != null && result.terminal && !forcedStop;
+        return new PlannerStats(expandedCount, simulatedCount, deepest, (System.nanoTime() - startTime) / 1e6,
+                forcedStop, deviationFulfilled, deadlineHit, budgetExhausted, result == null);
+    }
+
+    /** Helper method that walks down the tree by UCT until it reaches a node that is terminal or may get another
+     * child. */
+    private Node select(Node node) {
+        while (!node.terminal && !node.canExpand()) {
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(node.visits);
+            for (Node child : node.children) {
+                if (child.exhausted) continue;
+                double score = normalize(child.bestValue) + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                }
+            }
+            // All children are exhausted, so the node must get another child
+            if (best == null) return node;
+            node = best;
+        }
+        return node;
+    }
+
+    /** @return an intention value mapped to [0, 1], where 1 is the best value seen in this search. */
+    private double normalize(double value) {
+        if (maxValue <= minValue) return 1;
+        return (maxValue - Math.min(value, maxValue)) / (maxValue - minValue);
+    }
+
+    /** Helper method that adds the next untried child of a node.
+     * @return the new child. */
+    private Node expand(Node node, IntentionFunction intention, double stepsize) {
+        if (node.children.isEmpty()) expandedCount++;
+        int action = node.successors[node.children.size()];
+        PlanningState state = new PlanningState();
+        state.set(node.state);
+        ActionSet actionSet = ActionCatalog.get(action);
+        for (int i = 0; i < macroSteps; i++) {
+            Simulation.simulate(state, stepsize, actionSet);
+        }
+
+        Node child = new Node(node, action, state, node.depth + 1);
+        node.children.add(child);
+        nodeCount++;
+        simulatedCount++;
+        deepest = Math.max(deepest, child.depth);
+        evaluate(child, intention);
+        return child;
+    }
+
+    /** Helper method that computes the intention value of a node and whether the search ends there. */
+    private void evaluate(Node node, IntentionFunction intention) {
+        node.value = intention.compute(node.state);
+        node.bestValue = node.value;
+        node.terminal = node.depth >= maxDepth || (node.depth > 0 && intention.isDeviationFulfilled(node.state));
+        node.exhausted = node.terminal;
+        if (node.terminal && (bestTerminal == null || node.value < bestTerminal.value)) bestTerminal = node;
+
+        // Values such as Double.MAX_VALUE signals a useless state and should not stretch the normalization
+        if (node.value < Double.MAX_VALUE) {
+            minValue = Math.min(minValue, node.value);
+            maxValue = Math.max(maxValue, node.value);
+        }
+    }
+
+    /** Helper method that updates the visits and best values from a node up to the root. */
+    private void backpropagate(Node node) {
+        double value = node.bestValue;
+        for (Node n = node; n != null; n = n.parent) {
+            n.visits++;
+            n.bestValue = Math.min(n.bestValue, value);
+            if (!n.exhausted && n.isFullyExpanded()) {
+                n.exhausted = true;
+                for (Node child : n.children) {
+                    if (!child.exhausted) {
+                        n.exhausted = false;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /** @return the best node where the search ends, or the node found by following the best intention values from
+     * the root if there is none. It is never the root, so the root must have children. */
+    private Node getBestNode() {
+        if (bestTerminal != null && bestTerminal != root) return bestTerminal;
+
+        Node node = root;
+        do {
+            Node best = node.children.get(0);
+            for (Node child : node.children) {
+                if (child.bestValue < best.bestValue) best = child;
+            }
+            node = best;
+        } while (node.bestValue < node.value && !node.children.isEmpty());
+        return node;
+    }
+
+    /** @return the actions from the root towards a node, with each action repeated for every step of its edge. */
+    private List<ActionSet> getSequence(Node destination) {
+        List<ActionSet> sequence = new ArrayList<>();
+        for (Node node = destination; node != root; node = node.parent) {
+            for (int i = 0; i < macroSteps; i++) {
+                sequence.add(ActionCatalog.get(node.actionTaken));
+            }
+        }
+        Collections.reverse(sequence);
+        return sequence;
+    }
+
+    /** Helper method that looks for a node of the previous tree where the car is in the same cell as the car of the
+     * new situation. If one is found, it becomes the root with the new situation, and its subtree is simulated and
+     * evaluated again. A reused node whose actions can no longer follow, e.g. because the car lost its boost, loses
+     * its subtree.
+     * @return whether the tree was reused. */
+    private boolean reuseTree(Situation situation, IntentionFunction intention, double stepsize) {
+        if (root == null || rootIntention != intention.getClass()) return false;
+
+        PlanningState start = new PlanningState(situation, stepsize * macroSteps);
+        long startCell = REUSE_CELLS.hash(start, 0);
+        Node closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            if (REUSE_CELLS.hash(node.state, 0) == startCell) {
+                double dx = node.state.px - start.px;
+                double dy = node.state.py - start.py;
+                double dz = node.state.pz - start.pz;
+                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = node;
+                }
+            }
+            if (node.depth < REUSE_DEPTH) queue.addAll(node.children);
+        }
+        if (closest == null) return false;
+
+        // The children must be the ones that can follow in the new situation
+        int[] successors = ActionCatalog.getSuccessors(closest.actionTaken, start.midAir, start.boost > 0, start.hasDoubleJumped);
+        if (successors != closest.successors) return false;
+
+        // The rest of the old tree can be garbage collected
+        closest.parent = null;
+        closest.state.set(start);
+        root = closest;
+
+        // Simulate and evaluate the subtree again with depths counted from the new root. Parents come before their
+        // children
+        List<Node> subtree = new ArrayList<>();
+        subtree.add(root);
+        evaluate(root, intention);
+        for (int i = 0; i < subtree.size(); i++) {
+            Node node = subtree.get(i);
+            List<Node> children = node.children;
+            for (int c = 0; c < children.size(); c++) {
+                Node child = children.get(c);
+                child.state.set(node.state);
+                ActionSet actionSet = ActionCatalog.get(child.actionTaken);
+                for (int step = 0; step < macroSteps; step++) {
+                    Simulation.simulate(child.state, stepsize, actionSet);
+                }
+                simulatedCount++;
+
+                PlanningState state = child.state;
+                if (ActionCatalog.getSuccessors(child.actionTaken, state.midAir, state.boost > 0, state.hasDoubleJumped) != child.successors) {
+                    child = new Node(node, child.actionTaken, state, node.depth + 1);
+                    children.set(c, child);
+                }
+                child.depth = node.depth + 1;
+                deepest = Math.max(deepest, child.depth);
+                evaluate(child, intention);
+                subtree.add(child);
+            }
+        }
+        nodeCount = subtree.size();
+
+        // Propagate the best values and exhaustion from the leaves up
+        for (int i = subtree.size() - 1; i >= 0; i--) {
+            Node node = subtree.get(i);
+            if (!node.terminal && node.isFullyExpanded()) {
+                node.exhausted = true;
+                for (Node child : node.children) {
+                    if (!child.exhausted) {
+                        node.exhausted = false;
+                        break;
+                    }
+                }
+            }
+            if (node.parent != null) node.parent.bestValue = Math.min(node.parent.bestValue, node.bestValue);
+        }
+        return true;
+    }
+
+    /** Helper method that places a list of ActionSets in a TimeLine with stepsize interval between each. */
+    private static SteppedTimeLine<ActionSet> toTimeLine(List<ActionSet> sequence, double stepsize) {
+        SteppedTimeLine<ActionSet> timeLine = new SteppedTimeLine<>();
+        double time = 0;
+        for (ActionSet action : sequence) {
+            timeLine.addTimeStep(time, action);
+            time += stepsize;
+        }
+        return timeLine;
+    }
+
+    @Override
+    public void setMacroSteps(int steps) {
+        if (steps < 1) throw new IllegalArgumentException("Macro steps must be positive.");
+        if (steps != macroSteps) root = null; // The old tree was built with other edges
+        this.macroSteps = steps;
+    }
+
+    @Override
+    public int getMacroSteps() {
+        return macroSteps;
+    }
+
+    @Override
+    public boolean isDeadlineHit() {
+        return deadlineHit;
+    }
+
+    /** @return whether the latest search was stopped because it ran out of nodes. */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    /** @return whether the latest search reused a subtree of the previous search. */
+    public boolean isTreeReused() {
+        return treeReused;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public PlannerStats getLastStats() {
+        return lastStats;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+}
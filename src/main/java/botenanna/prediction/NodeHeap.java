@@ -0,0 +1,86 @@
+package botenanna.prediction;
+
+import java.util.Arrays;
+
+/** The open set of a planner as a binary min-heap of nodes, stored in primitive arrays. Each node is pushed with its
+ * value and a lower value comes out first. Nodes with the same value come out in the order of their indices, which is
+ * the order they were created in. */
+class NodeHeap {
+
+    private int[] nodes;
+    private double[] values;
+    private int size;
+
+    NodeHeap(int capacity) {
+        nodes = new int[Math.max(capacity, 1)];
+        values = new double[nodes.length];
+    }
+
+    /** Remove all nodes. */
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return the node with the lowest value, or -1 if the heap is empty. */
+    int peek() {
+        return size == 0 ? -1 : nodes[0];
+    }
+
+    /** Add a node with its value, growing the heap if needed. */
+    void push(int node, double value) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!isBefore(node, value, nodes[parent], values[parent])) break;
+            nodes[i] = nodes[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        values[i] = value;
+    }
+
+    /** Remove the node with the lowest value.
+     * @return the removed node, or -1 if the heap is empty. */
+    int pop() {
+        if (size == 0) return -1;
+
+        int top = nodes[0];
+        int lastNode = nodes[--size];
+        double lastValue = values[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && isBefore(nodes[child + 1], values[child + 1], nodes[child], values[child])) child++;
+            if (!isBefore(nodes[child], values[child], lastNode, lastValue)) break;
+            nodes[i] = nodes[child];
+            values[i] = values[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        values[i] = lastValue;
+        return top;
+    }
+
+    /** @return whether node a with value a should come out before node b with value b. */
+    static boolean isBefore(int a, double valueA, int b, double valueB) {
+        double fit = valueA - valueB;
+        if (fit < 0) return true;
+        if (fit > 0) return false;
+        return a < b;
+    }
+}
@@ -1,12 +1,11 @@
 package botenanna.prediction;
 
-import botenanna.game.Arena;
 import botenanna.game.Ball;
 import botenanna.math.Vector3;
 
 public class Physics {
 
-    public static final Vector3 GRAVITY = Vector3.DOWN.scale(650);
+    public static final Vector3 GRAVITY = new Vector3(0, 0, PhysicsKernel.GRAVITY_Z);
 
     /** Move a Ball. This includes bounces of walls and on the floor. This WILL change the balls data.
      * @param time must be zero or positive. */
@@ -22,7 +21,7 @@ public class Physics {
         do {
 
             nextWallHit = predictArrivalAtAnyWall(ball, Ball.RADIUS);
-            nextGroundHit = predictArrivalAtHeight(ball, Ball.RADIUS, true);
+            nextGroundHit = predictBallArrivalAtGround(ball);
 
             // Check if ball doesn't hits anything
             if (timeLeft < nextGroundHit && timeLeft < nextWallHit) {
@@ -47,7 +46,13 @@ public class Physics {
                     break;
                 }
 
-                stepBody(ball, Math.min(nextWallHit, timeLeft), false);
+                // Check if ball doesn't reach the wall
+                if (timeLeft < nextWallHit) {
+                    stepBody(ball, timeLeft, false);
+                    return ball;
+                }
+
+                stepBody(ball, nextWallHit, false);
                 timeSpent += nextWallHit;
 
                 Vector3 vel = ball.getVelocity();
@@ -61,7 +66,11 @@ public class Physics {
                 stepBody(ball, nextGroundHit, true);
                 timeSpent += nextGroundHit;
                 Vector3 vel = ball.getVelocity();
-                ball.setVelocity(new Vector3(vel.x, vel.y, vel.z * Ball.BALL_GROUND_BOUNCINESS));
+                double bounceVelZ = vel.z * Ball.BALL_GROUND_BOUNCINESS;
+                // Tiny bounces are ignored and the ball starts rolling instead
+                if (bounceVelZ < Ball.MIN_BOUNCE_VELOCITY) bounceVelZ = 0;
+                ball.setPosition(ball.getPosition().withZ(Ball.RADIUS));
+                ball.setVelocity(new Vector3(vel.x, vel.y, bounceVelZ));
             }
 
             timeLeft = time - timeSpent;
@@ -70,23 +79,38 @@ public class Physics {
         return ball;
     }
 
-    /** Get the path describing how a Ball will travel.
+    /** Helper function for {@link #stepBall(Rigidbody, double)}.
+     * See {@link PhysicsKernel#predictBallArrivalAtGround(double, double, double)}. */
+    private static double predictBallArrivalAtGround(Rigidbody ball) {
+        return PhysicsKernel.predictBallArrivalAtGround(ball.getPosition().z, ball.getVelocity().z, ball.getAcceleration().z);
+    }
+
+    /** Get the path describing how a Ball will travel. The path is drift-free, see {@link BallPathIntegrator}.
      * @param ball the ball to be simulated
      * @param duration must be zero or positive.
      * @param stepsize must be positive. A smaller step size will increase the accuracy of the Path. */
     public static Path getBallPath(Rigidbody ball, double duration, double stepsize) {
+        return getBallPath(ball, duration, stepsize, true);
+    }
+
+    /** Get the path describing how a Ball will travel. The ball is simulated only once, moving from one step to the
+     * next, so the cost grows linearly with the number of steps.
+     * @param ball the ball to be simulated
+     * @param duration must be zero or positive.
+     * @param stepsize must be positive. A smaller step size will increase the accuracy of the Path.
+     * @param driftFree whether positions should be calculated from the latest bounce instead of from the previous
+     *                  step, which avoids the build up of rounding errors. */
+    public static Path getBallPath(Rigidbody ball, double duration, double stepsize, boolean driftFree) {
         if (duration < 0) throw new IllegalArgumentException("Duration must be zero or positive.");
         if (stepsize <= 0) throw new IllegalArgumentException("Step size must be positive.");
 
         Path path = new Path();
-        Rigidbody clone = ball.clone();
+        BallPathIntegrator integrator = new BallPathIntegrator(ball, driftFree);
 
-        for (double time = 0; time <= duration; time += stepsize) {
-            // Resetting the ball each iteration results in more calculations when the ball bounces a lot, but
-            // it will be more precise in general, since there will be less rounding errors.
-            clone.set(ball);
-            Vector3 pos = stepBall(clone, time).getPosition();
-            path.addTimeStep(time, pos);
+        for (int i = 0; i * stepsize <= duration; i++) {
+            double time = i * stepsize;
+            integrator.advanceTo(time);
+            path.addTimeStep(time, integrator.getPosition());
         }
 
         return path;
@@ -97,13 +121,19 @@ public class Physics {
      * @param time time passed in seconds
      * @return the {@code body} simulated {@code time} seconds. */
     public static <T extends Rigidbody> T stepBody(T body, double time, boolean affectedByGravity) {
-        Vector3 actualAcceleration = affectedByGravity ? body.getAcceleration().plus(GRAVITY) : body.getAcceleration();
-
-        // new_position = p + (1/2 * a * t^2) + (v * t)
-        Vector3 newPos = body.getPosition().plus(actualAcceleration.scale(0.5 * time * time)).plus(body.getVelocity().scale(time));
-        Vector3 newVel = body.getVelocity().plus(actualAcceleration.scale(time));
-        body.setPosition(newPos);
-        body.setVelocity(newVel);
+        Vector3 pos = body.getPosition();
+        Vector3 vel = body.getVelocity();
+        Vector3 acc = body.getAcceleration();
+        double accZ = affectedByGravity ? acc.z + PhysicsKernel.GRAVITY_Z : acc.z;
+
+        body.setPosition(new Vector3(
+                PhysicsKernel.position(pos.x, vel.x, acc.x, time),
+                PhysicsKernel.position(pos.y, vel.y, acc.y, time),
+                PhysicsKernel.position(pos.z, vel.z, accZ, time)));
+        body.setVelocity(new Vector3(
+                PhysicsKernel.velocity(vel.x, acc.x, time),
+                PhysicsKernel.velocity(vel.y, acc.y, time),
+                PhysicsKernel.velocity(vel.z, accZ, time)));
 
         return body;
     }
@@ -153,175 +183,46 @@ public class Physics {
      * @param height the height.
      * @return the expected time till the rigidbody will be at height in seconds, always positive, or NaN if {@code height} is never reached. */
     public static double predictArrivalAtHeight(Rigidbody body, double height, boolean affectedByGravity) {
-
-        // If already at height, return 0
-        if (height == body.getPosition().z) return 0;
-
-        // Check if there is acceleration involved
-        Vector3 actualAcceleration = affectedByGravity ? body.getAcceleration().plus(GRAVITY) : body.getAcceleration();
-        if (actualAcceleration.z == 0) {
-            // Only velocity is relevant
-            return predictArrivalAtHeightLinear(body, height);
-
-        } else {
-            // Acceleration must be taken into account
-            return predictArrivalAtHeightQuadratic(body, height, actualAcceleration.z);
-        }
-    }
-
-    /** Helper function for {@link #predictArrivalAtHeight(Rigidbody, double, boolean)} for when acceleration is relevant.
-     * @return the expected time till arrival, or NaN if the rigidbody will never arrive at {@code height} */
-    private static double predictArrivalAtHeightQuadratic(Rigidbody body, double height, double actualZAcceleration) {
-
-        Vector3 position = body.getPosition();
-        Vector3 velocity = body.getVelocity();
-
-        // Check if height is above current z, because then the rigidbody may never get there
-        if (height > position.z) {
-
-            // Elapsed time when arriving at the turning point
-            double turningTime = -velocity.z / actualZAcceleration;
-
-            // This is in the past?? -> acceleration must have been negative
-            if (turningTime < 0) return Double.NaN;
-
-            // Height at turning point
-            double turningHeight = 0.5 * actualZAcceleration * turningTime * turningTime + velocity.z * turningTime + position.z;
-
-            // Return null if height is never reached
-            if (turningHeight < height) return Double.NaN;
-
-            // The height is reached on the way up!
-            if (position.z < height) {
-                // See technical documents for this equation : t = (-v + sqrt(2*a*h - 2*a*p + v^2) / a
-                return (-velocity.z + Math.sqrt(2 * actualZAcceleration * height - 2 * actualZAcceleration * position.z + velocity.z * velocity.z)) / actualZAcceleration;
-            }
-
-            // No cases hit, everything is fine
-        }
-
-        // See technical documents for this equation : t = -(v + sqrt(2*a*h - 2*a*p + v^2) / a
-        return -(velocity.z + Math.sqrt(2 * actualZAcceleration * height - 2 * actualZAcceleration * position.z + velocity.z * velocity.z)) / actualZAcceleration;
-    }
-
-    /** Helper function for {@link #predictArrivalAtHeight(Rigidbody, double, boolean)} for when there is no acceleration, only velocity.
-     * @return the expected time till arrival, or NaN if the rigidbody will never arrive at {@code height} */
-    private static double predictArrivalAtHeightLinear(Rigidbody body, double height) {
-
-        Vector3 position = body.getPosition();
-        Vector3 velocity = body.getVelocity();
-
-        if (velocity.z == 0) return Double.NaN; // no velocity
-
-        // time of arrival
-        double arrivalTime = (height - position.z) / velocity.z;
-
-        if (arrivalTime < 0) return Double.NaN; // time is in the past -> will never get there
-
-        return arrivalTime;
+        return PhysicsKernel.predictArrivalAtHeight(body.getPosition().z, body.getVelocity().z, body.getAcceleration().z, height, affectedByGravity);
     }
 
     /** @param offset the offset from the wall. Relevant for any objects with a radius.
      * @return the time until arrival at any wall. Can be NaN. */
     public static double predictArrivalAtAnyWall(Rigidbody body, double offset) {
-        double[] arrivalTimes = {
-                predictArrivalAtWallXPositive(body, offset),
-                predictArrivalAtWallXNegative(body, offset),
-                predictArrivalAtWallYPositive(body, offset),
-                predictArrivalAtWallYNegative(body, offset)
-        };
-        double earliestTimeOfArrival = Double.NaN;
-        for (int i = 0; i < arrivalTimes.length; i++) {
-            if (!Double.isNaN(arrivalTimes[i]) && (Double.isNaN(earliestTimeOfArrival) || arrivalTimes[i] < earliestTimeOfArrival)) {
-                earliestTimeOfArrival = arrivalTimes[i];
-            }
-        }
-        return earliestTimeOfArrival;
+        Vector3 pos = body.getPosition();
+        Vector3 vel = body.getVelocity();
+        return PhysicsKernel.predictArrivalAtAnyWall(pos.x, pos.y, vel.x, vel.y, offset);
     }
 
     /** @return whether the next wall hit will be a side wall of the arena as opposed to an end wall (those by the goals).
      * If the Rigidbody never hits a wall, false i returned. */
     public static boolean willHitSideWallNext(Rigidbody body, double offset) {
-        double[] arrivalTimes = {
-                predictArrivalAtWallXPositive(body, offset),
-                predictArrivalAtWallXNegative(body, offset),
-                predictArrivalAtWallYPositive(body, offset),
-                predictArrivalAtWallYNegative(body, offset)
-        };
-        double wallIndex = -1;
-        double earliestTimeOfArrival = Double.NaN;
-        for (int i = 0; i < arrivalTimes.length; i++) {
-            if (!Double.isNaN(arrivalTimes[i])) {
-                if (Double.isNaN(earliestTimeOfArrival) || arrivalTimes[i] < earliestTimeOfArrival) {
-                    earliestTimeOfArrival = arrivalTimes[i];
-                    wallIndex = i;
-                }
-            }
-        }
-        if (wallIndex == 0 || wallIndex == 1)
-            return true;
-        else
-            return false;
+        Vector3 pos = body.getPosition();
+        Vector3 vel = body.getVelocity();
+        return PhysicsKernel.willHitSideWallNext(pos.x, pos.y, vel.x, vel.y, offset);
     }
 
-
     /** @param offset the offset from the wall. Relevant for any objects with a radius.
      * @return the time until arrival at wall at x positive. */
     public static double predictArrivalAtWallXPositive(Rigidbody body, double offset) {
-        double distance = Arena.WIDTH / 2 - offset;
-        if (body.getVelocity().x > 0) {
-            if (body.getPosition().x < distance) {
-                return (distance - body.getPosition().x) / body.getVelocity().x;
-            } else {
-                // We assume that if the RigidBody is outside of the field, it will be pushed in immediately
-                return 0;
-            }
-        }
-        return Double.NaN;
+        return PhysicsKernel.predictArrivalAtWallXPositive(body.getPosition().x, body.getVelocity().x, offset);
     }
 
     /** @param offset the offset from the wall. Relevant for any objects with a radius.
      * @return the time until arrival at wall at x negative. */
     public static double predictArrivalAtWallXNegative(Rigidbody body, double offset) {
-        double distance = Arena.WIDTH / 2 - offset;
-        if (body.getVelocity().x < 0) {
-            if (body.getPosition().x > -distance) {
-                return (-distance - body.getPosition().x) / body.getVelocity().x;
-            } else {
-                // We assume that if the RigidBody is outside of the field, it will be pushed in immediately
-                return 0;
-            }
-        }
-        return Double.NaN;
+        return PhysicsKernel.predictArrivalAtWallXNegative(body.getPosition().x, body.getVelocity().x, offset);
     }
 
     /** @param offset the offset from the wall. Relevant for any objects with a radius.
      * @return the time until arrival at wall at y positive. */
     public static double predictArrivalAtWallYPositive(Rigidbody body, double offset) {
-        double distance = Arena.LENGTH / 2 - offset;
-        if (body.getVelocity().y > 0) {
-            if (body.getPosition().y < distance) {
-                return (distance - body.getPosition().y) / body.getVelocity().y;
-            } else {
-                // We assume that if the RigidBody is outside of the field, it will be pushed in immediately
-                return 0;
-            }
-        }
-        return Double.NaN;
+        return PhysicsKernel.predictArrivalAtWallYPositive(body.getPosition().y, body.getVelocity().y, offset);
     }
 
     /** @param offset the offset from the wall. Relevant for any objects with a radius.
      * @return the time until arrival at wall at y negative. */
     public static double predictArrivalAtWallYNegative(Rigidbody body, double offset) {
-        double distance = Arena.LENGTH / 2 - offset;
-        if (body.getVelocity().y < 0) {
-            if (body.getPosition().y > -distance) {
-                return (-distance - body.getPosition().y) / body.getVelocity().y;
-            } else {
-                // We assume that if the RigidBody is outside of the field, it will be pushed in immediately
-                return 0;
-            }
-        }
-        return Double.NaN;
+        return PhysicsKernel.predictArrivalAtWallYNegative(body.getPosition().y, body.getVelocity().y, offset);
     }
 }
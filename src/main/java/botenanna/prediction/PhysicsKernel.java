@@ -0,0 +1,236 @@
+package botenanna.prediction;
+
+import botenanna.game.Arena;
+import botenanna.game.Ball;
+
+/** <p>The PhysicsKernel contains the math behind {@link Physics}, but works on primitives and {@link BodyState}s
+ * instead of Rigidbodies and Vector3s. Nothing in here allocates, which makes it suited for inner loops that run many
+ * times each tick.</p>
+ *
+ * <p>All times are in seconds. NaN is returned when something never happens. The class is strictfp and only uses basic
+ * arithmetic and {@link Math#sqrt(double)}, so the same input gives the same result on every platform, see
+ * {@link FixedTimestep}.</p> */
+public strictfp class PhysicsKernel {
+
+    public static final double GRAVITY_Z = -650;
+
+    /** Move a BodyState {@code time} seconds into the future. Bounces are not considered.
+     * @return the given {@code state}. */
+    public static BodyState stepBody(BodyState state, double time, boolean affectedByGravity) {
+        double gz = affectedByGravity ? state.az + GRAVITY_Z : state.az;
+        double halfTimeSqr = 0.5 * time * time;
+
+        // new_position = p + (1/2 * a * t^2) + (v * t)
+        state.px += state.ax * halfTimeSqr + state.vx * time;
+        state.py += state.ay * halfTimeSqr + state.vy * time;
+        state.pz += gz * halfTimeSqr + state.vz * time;
+        state.vx += state.ax * time;
+        state.vy += state.ay * time;
+        state.vz += gz * time;
+
+        return state;
+    }
+
+    /** Move a ball {@code time} seconds into the future, including bounces off walls and on the ground. The bounces
+     * follow the same rules as {@link BallPathIntegrator}.
+     * @param rolling whether the ball is rolling on the ground at the start.
+     * @return whether the ball is rolling at the end. */
+    public static boolean stepBall(BodyState ball, boolean rolling, double time) {
+        while (true) {
+            double side = predictArrivalAtSideWall(ball.px, ball.vx, Ball.RADIUS);
+            double end = predictArrivalAtEndWall(ball.py, ball.vy, Ball.RADIUS);
+            double ground = rolling ? Double.NaN : predictBallArrivalAtGround(ball.pz, ball.vz, ball.az);
+            double contact = earliest(earliest(side, end), ground);
+
+            if (Double.isNaN(contact) || contact > time) {
+                stepBody(ball, time, !rolling);
+                return rolling;
+            }
+
+            stepBody(ball, contact, !rolling);
+            time -= contact;
+
+            if (contact == side) {
+                ball.vx *= Ball.BALL_WALL_BOUNCINESS;
+            } else if (contact == end) {
+                ball.vy *= Ball.BALL_WALL_BOUNCINESS;
+            } else {
+                ball.pz = Ball.RADIUS;
+                ball.vz *= Ball.BALL_GROUND_BOUNCINESS;
+                // Tiny bounces are ignored and the ball starts rolling instead
+                if (ball.vz < Ball.MIN_BOUNCE_VELOCITY) {
+                    ball.vz = 0;
+                    rolling = true;
+                }
+            }
+        }
+    }
+
+    /** @return the position along one axis after {@code time} seconds. */
+    public static double position(double position, double velocity, double acceleration, double time) {
+        return position + 0.5 * acceleration * time * time + velocity * time;
+    }
+
+    /** @return the velocity along one axis after {@code time} seconds. */
+    public static double velocity(double velocity, double acceleration, double time) {
+        return velocity + acceleration * time;
+    }
+
+    /** Calculate when something will be at a specific {@code height}. See
+     * {@link Physics#predictArrivalAtHeight(Rigidbody, double, boolean)} for the list of cases.
+     * @param acceleration the acceleration along the z-axis, excluding gravity.
+     * @return the expected time till arrival, always positive, or NaN if {@code height} is never reached. */
+    public static double predictArrivalAtHeight(double position, double velocity, double acceleration, double height, boolean affectedByGravity) {
+
+        // If already at height, return 0
+        if (height == position) return 0;
+
+        double actualAcceleration = affectedByGravity ? acceleration + GRAVITY_Z : acceleration;
+        if (actualAcceleration == 0) {
+            // Only velocity is relevant
+            return predictArrivalAtHeightLinear(position, velocity, height);
+        } else {
+            // Acceleration must be taken into account
+            return predictArrivalAtHeightQuadratic(position, velocity, actualAcceleration, height);
+        }
+    }
+
+    /** Helper function for {@link #predictArrivalAtHeight(double, double, double, double, boolean)} for when
+     * acceleration is relevant.
+     * @return the expected time till arrival, or NaN if {@code height} is never reached. */
+    private static double predictArrivalAtHeightQuadratic(double position, double velocity, double acceleration, double height) {
+
+        // Check if height is above current z, because then it may never get there
+        if (height > position) {
+
+            // Elapsed time when arriving at the turning point
+            double turningTime = -velocity / acceleration;
+
+            // This is in the past?? -> acceleration must have been negative
+            if (turningTime < 0) return Double.NaN;
+
+            // Height at turning point
+            double turningHeight = 0.5 * acceleration * turningTime * turningTime + velocity * turningTime + position;
+
+            // Return null if height is never reached
+            if (turningHeight < height) return Double.NaN;
+
+            // The height is reached on the way up!
+            // See technical documents for this equation : t = (-v + sqrt(2*a*h - 2*a*p + v^2) / a
+            return (-velocity + Math.sqrt(2 * acceleration * height - 2 * acceleration * position + velocity * velocity)) / acceleration;
+        }
+
+        // See technical documents for this equation : t = -(v + sqrt(2*a*h - 2*a*p + v^2) / a
+        return -(velocity + Math.sqrt(2 * acceleration * height - 2 * acceleration * position + velocity * velocity)) / acceleration;
+    }
+
+    /** Helper function for {@link #predictArrivalAtHeight(double, double, double, double, boolean)} for when there is
+     * no acceleration, only velocity.
+     * @return the expected time till arrival, or NaN if {@code height} is never reached. */
+    private static double predictArrivalAtHeightLinear(double position, double velocity, double height) {
+
+        if (velocity == 0) return Double.NaN; // no velocity
+
+        // time of arrival
+        double arrivalTime = (height - position) / velocity;
+
+        if (arrivalTime < 0) return Double.NaN; // time is in the past -> will never get there
+
+        return arrivalTime;
+    }
+
+    /** Like {@link #predictArrivalAtHeight(double, double, double, double, boolean)} at the ball's radius with gravity,
+     * except that a ball on the ground moving upwards (after a bounce) will return the time until it comes back down,
+     * and a ball on or below the ground that is not moving upwards will return 0.
+     * @param acceleration the acceleration along the z-axis, excluding gravity.
+     * @return the time until the ball hits the ground, or NaN if it never does. */
+    public static double predictBallArrivalAtGround(double position, double velocity, double acceleration) {
+        if (position <= Ball.RADIUS) {
+            if (velocity <= 0) return 0;
+
+            // Leaving the ground. The time of the return is where the parabola gets back to the current height
+            double actualAcceleration = acceleration + GRAVITY_Z;
+            if (actualAcceleration >= 0) return Double.NaN;
+            return -2 * velocity / actualAcceleration;
+        }
+
+        return predictArrivalAtHeight(position, velocity, acceleration, Ball.RADIUS, true);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at wall at x positive. */
+    public static double predictArrivalAtWallXPositive(double positionX, double velocityX, double offset) {
+        return predictArrivalAtPositiveWall(positionX, velocityX, Arena.WIDTH / 2 - offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at wall at x negative. */
+    public static double predictArrivalAtWallXNegative(double positionX, double velocityX, double offset) {
+        return predictArrivalAtPositiveWall(-positionX, -velocityX, Arena.WIDTH / 2 - offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at wall at y positive. */
+    public static double predictArrivalAtWallYPositive(double positionY, double velocityY, double offset) {
+        return predictArrivalAtPositiveWall(positionY, velocityY, Arena.LENGTH / 2 - offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at wall at y negative. */
+    public static double predictArrivalAtWallYNegative(double positionY, double velocityY, double offset) {
+        return predictArrivalAtPositiveWall(-positionY, -velocityY, Arena.LENGTH / 2 - offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at either of the side walls, which are the walls along the x-axis. */
+    public static double predictArrivalAtSideWall(double positionX, double velocityX, double offset) {
+        return velocityX >= 0 ?
+                predictArrivalAtWallXPositive(positionX, velocityX, offset) :
+                predictArrivalAtWallXNegative(positionX, velocityX, offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at either of the end walls, which are the walls along the y-axis. */
+    public static double predictArrivalAtEndWall(double positionY, double velocityY, double offset) {
+        return velocityY >= 0 ?
+                predictArrivalAtWallYPositive(positionY, velocityY, offset) :
+                predictArrivalAtWallYNegative(positionY, velocityY, offset);
+    }
+
+    /** @param offset the offset from the wall. Relevant for any objects with a radius.
+     * @return the time until arrival at any wall. Can be NaN. */
+    public static double predictArrivalAtAnyWall(double positionX, double positionY, double velocityX, double velocityY, double offset) {
+        return earliest(
+                predictArrivalAtSideWall(positionX, velocityX, offset),
+                predictArrivalAtEndWall(positionY, velocityY, offset));
+    }
+
+    /** @return whether the next wall hit will be a side wall of the arena as opposed to an end wall (those by the
+     * goals). If it never hits a wall, false i returned. */
+    public static boolean willHitSideWallNext(double positionX, double positionY, double velocityX, double velocityY, double offset) {
+        double sideWall = predictArrivalAtSideWall(positionX, velocityX, offset);
+        double endWall = predictArrivalAtEndWall(positionY, velocityY, offset);
+        return !Double.isNaN(sideWall) && (Double.isNaN(endWall) || sideWall <= endWall);
+    }
+
+    /** @return the earliest of two times, where NaN means never. */
+    public static double earliest(double a, double b) {
+        if (Double.isNaN(a)) return b;
+        if (Double.isNaN(b)) return a;
+        return Math.min(a, b);
+    }
+
+    /** Helper function for the wall predictions. The axis is flipped for walls at the negative end.
+     * @return the time until arrival at a wall placed at {@code distance} along the axis. */
+    private static double predictArrivalAtPositiveWall(double position, double velocity, double distance) {
+        if (velocity > 0) {
+            if (position < distance) {
+                return (distance - position) / velocity;
+            } else {
+                // We assume that if the body is outside of the field, it will be pushed in immediately
+                return 0;
+            }
+        }
+        return Double.NaN;
+    }
+}
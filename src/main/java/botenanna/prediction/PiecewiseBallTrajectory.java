@@ -0,0 +1,276 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+import botenanna.prediction.BallPathIntegrator.Contact;
+import botenanna.prediction.BallPathIntegrator.ContactType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** <p>The PiecewiseBallTrajectory describes the path of a ball as a list of segments. Between two bounces the ball
+ * moves along a parabola (or a straight line, when it is rolling), so each segment only needs to know the ball's
+ * state right after the bounce that started it. No samples are stored.</p>
+ *
+ * <p>Evaluating the trajectory at any time is a binary search for the segment followed by a closed-form expression,
+ * so the result is exact and no stepping is done. Times are relative to the start of the trajectory. The segments
+ * cover the horizon given at creation. Asking for a time after that will simulate the ball from the end of the
+ * horizon.</p> */
+public class PiecewiseBallTrajectory {
+
+    public static final double DEFAULT_HORIZON = 10;
+
+    private final double[] startTimes;
+    private final double[] px;
+    private final double[] py;
+    private final double[] pz;
+    private final double[] vx;
+    private final double[] vy;
+    private final double[] vz;
+    private final boolean[] rolling;
+    private final ContactType[] contacts;
+    private final int count;
+    private final double ax, ay, az;
+    private final double horizon;
+    private final double timeOffset;
+
+    /** Predict the path of a ball {@link #DEFAULT_HORIZON} seconds into the future. */
+    public PiecewiseBallTrajectory(Rigidbody ball) {
+        this(ball, DEFAULT_HORIZON);
+    }
+
+    /** Predict the path of a ball {@code horizon} seconds into the future.
+     * @param horizon must be zero or positive. */
+    public PiecewiseBallTrajectory(Rigidbody ball, double horizon) {
+        if (horizon < 0) throw new IllegalArgumentException("Horizon must be zero or positive.");
+
+        BallPathIntegrator integrator = new BallPathIntegrator(ball, true);
+        boolean startsRolling = integrator.isRolling();
+        Vector3 startPos = integrator.getPosition();
+        Vector3 startVel = integrator.getVelocity();
+        integrator.advanceTo(horizon);
+        List<Contact> contactList = integrator.getContacts();
+
+        count = contactList.size() + 1;
+        startTimes = new double[count];
+        px = new double[count];
+        py = new double[count];
+        pz = new double[count];
+        vx = new double[count];
+        vy = new double[count];
+        vz = new double[count];
+        rolling = new boolean[count];
+        contacts = new ContactType[count];
+
+        // The first segment is not started by a contact
+        setSegment(0, 0, startPos, startVel, startsRolling, null);
+        for (int i = 1; i < count; i++) {
+            Contact contact = contactList.get(i - 1);
+            setSegment(i, contact.time, contact.position, contact.velocity, contact.rolling, contact.type);
+        }
+
+        Vector3 acc = ball.getAcceleration();
+        ax = acc.x;
+        ay = acc.y;
+        az = acc.z;
+        this.horizon = horizon;
+        this.timeOffset = 0;
+    }
+
+    /** Constructor for shifted trajectories. The segments are shared. */
+    private PiecewiseBallTrajectory(PiecewiseBallTrajectory original, double timeOffset) {
+        startTimes = original.startTimes;
+        px = original.px;
+        py = original.py;
+        pz = original.pz;
+        vx = original.vx;
+        vy = original.vy;
+        vz = original.vz;
+        rolling = original.rolling;
+        contacts = original.contacts;
+        count = original.count;
+        ax = original.ax;
+        ay = original.ay;
+        az = original.az;
+        horizon = original.horizon;
+        this.timeOffset = timeOffset;
+    }
+
+    /** Helper function for the constructor to store a segment. */
+    private void setSegment(int index, double time, Vector3 pos, Vector3 vel, boolean isRolling, ContactType contact) {
+        startTimes[index] = time;
+        px[index] = pos.x;
+        py[index] = pos.y;
+        pz[index] = pos.z;
+        vx[index] = vel.x;
+        vy[index] = vel.y;
+        vz[index] = vel.z;
+        rolling[index] = isRolling;
+        contacts[index] = contact;
+    }
+
+    /** @return a PiecewiseBallTrajectory that starts {@code time} seconds later than this one. The segments are
+     * shared between the two trajectories.
+     * @param time must be zero or positive. */
+    public PiecewiseBallTrajectory shift(double time) {
+        if (time < 0) throw new IllegalArgumentException("Time must be zero or positive.");
+        return new PiecewiseBallTrajectory(this, timeOffset + time);
+    }
+
+    /** @return the index of the segment the ball is in {@code time} seconds after the start of this trajectory. */
+    public int getSegmentIndex(double time) {
+        return findSegment(toAbsoluteTime(time));
+    }
+
+    /** Binary search for the last segment starting at or before an absolute time. */
+    private int findSegment(double absoluteTime) {
+        int index = Arrays.binarySearch(startTimes, 0, count, absoluteTime);
+        // When not found, binarySearch returns -(insertion point) - 1. The segment before the insertion point is wanted
+        if (index < 0) index = -index - 2;
+        // If several segments start at the same time, use the last of them
+        while (index + 1 < count && startTimes[index + 1] == absoluteTime) index++;
+        return Math.max(index, 0);
+    }
+
+    /** @return the position of the ball {@code time} seconds after the start of this trajectory. */
+    public Vector3 getPosition(double time) {
+        double absoluteTime = toAbsoluteTime(time);
+        if (absoluteTime > horizon) return getBallBeyondHorizon(absoluteTime).getPosition();
+        int i = findSegment(absoluteTime);
+        double t = absoluteTime - startTimes[i];
+        double gz = getSegmentAccelerationZ(i);
+        return new Vector3(
+                px[i] + vx[i] * t + 0.5 * ax * t * t,
+                py[i] + vy[i] * t + 0.5 * ay * t * t,
+                pz[i] + vz[i] * t + 0.5 * gz * t * t);
+    }
+
+    /** @return the velocity of the ball {@code time} seconds after the start of this trajectory. */
+    public Vector3 getVelocity(double time) {
+        double absoluteTime = toAbsoluteTime(time);
+        if (absoluteTime > horizon) return getBallBeyondHorizon(absoluteTime).getVelocity();
+        int i = findSegment(absoluteTime);
+        double t = absoluteTime - startTimes[i];
+        return new Vector3(vx[i] + ax * t, vy[i] + ay * t, vz[i] + getSegmentAccelerationZ(i) * t);
+    }
+
+    /** @return a new Rigidbody describing the ball {@code time} seconds after the start of this trajectory. */
+    public Rigidbody getBall(double time) {
+        Rigidbody ball = new Rigidbody();
+        ball.setPosition(getPosition(time));
+        ball.setVelocity(getVelocity(time));
+        ball.setAcceleration(new Vector3(ax, ay, az));
+        return ball;
+    }
+
+    /** Evaluate positions and velocities at {@code count} evenly spaced times, starting at {@code time} with
+     * {@code step} seconds in between, and store them in the given arrays from index {@code offset}. The index of the
+     * segment of each sample is stored too. The segments are walked once instead of searched for every sample. All
+     * times must be within the horizon. */
+    void sample(double time, double step, int count, int offset, double[] outPx, double[] outPy, double[] outPz,
+                double[] outVx, double[] outVy, double[] outVz, int[] outSegments) {
+        double absoluteStart = toAbsoluteTime(time);
+        int i = findSegment(absoluteStart);
+        for (int s = 0; s < count; s++) {
+            double absoluteTime = absoluteStart + s * step;
+            while (i + 1 < this.count && startTimes[i + 1] <= absoluteTime) i++;
+            double t = absoluteTime - startTimes[i];
+            double gz = getSegmentAccelerationZ(i);
+            int o = offset + s;
+            outPx[o] = px[i] + vx[i] * t + 0.5 * ax * t * t;
+            outPy[o] = py[i] + vy[i] * t + 0.5 * ay * t * t;
+            outPz[o] = pz[i] + vz[i] * t + 0.5 * gz * t * t;
+            outVx[o] = vx[i] + ax * t;
+            outVy[o] = vy[i] + ay * t;
+            outVz[o] = vz[i] + gz * t;
+            outSegments[o] = i;
+        }
+    }
+
+    /** @return the index of the segment the ball is in {@code time} seconds after the start of this trajectory,
+     * searching forwards from segment {@code fromIndex}. Cheaper than {@link #getSegmentIndex(double)} when the times
+     * asked for are increasing. */
+    int advanceSegmentIndex(int fromIndex, double time) {
+        double absoluteTime = toAbsoluteTime(time);
+        int i = fromIndex;
+        while (i + 1 < count && startTimes[i + 1] <= absoluteTime) i++;
+        return i;
+    }
+
+    /** @return the x-coordinate of the ball {@code time} seconds after the start of this trajectory, given that the
+     * ball is in segment {@code index} at that time. */
+    double getPositionX(int index, double time) {
+        return PhysicsKernel.position(px[index], vx[index], ax, time + timeOffset - startTimes[index]);
+    }
+
+    /** @return the y-coordinate of the ball {@code time} seconds after the start of this trajectory, given that the
+     * ball is in segment {@code index} at that time. */
+    double getPositionY(int index, double time) {
+        return PhysicsKernel.position(py[index], vy[index], ay, time + timeOffset - startTimes[index]);
+    }
+
+    /** @return the z-coordinate of the ball {@code time} seconds after the start of this trajectory, given that the
+     * ball is in segment {@code index} at that time. */
+    double getPositionZ(int index, double time) {
+        return PhysicsKernel.position(pz[index], vz[index], getSegmentAccelerationZ(index), time + timeOffset - startTimes[index]);
+    }
+
+    /** @return the acceleration along the z-axis in a segment, including gravity if the ball is not rolling. */
+    private double getSegmentAccelerationZ(int index) {
+        return rolling[index] ? az : az + PhysicsKernel.GRAVITY_Z;
+    }
+
+    /** Helper function that simulates the ball from the end of the horizon. */
+    private Rigidbody getBallBeyondHorizon(double absoluteTime) {
+        Rigidbody ball = new PiecewiseBallTrajectory(this, 0).getBall(horizon);
+        BallPathIntegrator integrator = new BallPathIntegrator(ball, true);
+        integrator.advanceTo(absoluteTime - horizon);
+        return integrator.toRigidbody();
+    }
+
+    /** Convert a time relative to the start of this trajectory to a time relative to the first segment. */
+    private double toAbsoluteTime(double time) {
+        if (time < 0) throw new IllegalArgumentException("Time must be zero or positive.");
+        return time + timeOffset;
+    }
+
+    /** @return the number of segments, including those that ended before the start of this trajectory. */
+    public int getSegmentCount() {
+        return count;
+    }
+
+    /** @return the time a segment starts relative to the start of this trajectory. Negative for segments that
+     * started before the start of this trajectory. */
+    public double getSegmentStartTime(int index) {
+        return startTimes[index] - timeOffset;
+    }
+
+    /** @return the ball's position at the start of a segment. */
+    public Vector3 getSegmentPosition(int index) {
+        return new Vector3(px[index], py[index], pz[index]);
+    }
+
+    /** @return the ball's velocity at the start of a segment. */
+    public Vector3 getSegmentVelocity(int index) {
+        return new Vector3(vx[index], vy[index], vz[index]);
+    }
+
+    /** @return whether the ball is rolling on the ground during a segment. */
+    public boolean isSegmentRolling(int index) {
+        return rolling[index];
+    }
+
+    /** @return the type of contact that started a segment, or null for the first segment. */
+    public ContactType getSegmentContact(int index) {
+        return contacts[index];
+    }
+
+    /** @return the acceleration of the ball, excluding gravity. */
+    public Vector3 getAcceleration() {
+        return new Vector3(ax, ay, az);
+    }
+
+    /** @return the number of seconds covered by segments, counted from the start of this trajectory. */
+    public double getDuration() {
+        return Math.max(0, horizon - timeOffset);
+    }
+}
@@ -0,0 +1,249 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.Situation;
+import botenanna.math.SteppedTimeLine;
+import botenanna.math.TimeLine;
+import botenanna.math.Vector3;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** <p>The PlanCache remembers plans, so an intention that is planned again from nearly the same situation can reuse a
+ * plan instead of searching. Plans are stored under the cell of the start state of my car, see
+ * {@link StateQuantizer}, and a key identifying the intention, e.g. its class and arguments. The key must cover
+ * everything the intention depends on, except my car and the ball.</p>
+ *
+ * <p>Since states in the same cell are not equal, and the ball is not part of the cell, a cached plan is checked
+ * before it is used: its first steps are simulated from the new situation, and my car must end up close to where it
+ * did when the plan was cached. The ball must also be close to where it was, both now and at the end of the plan.
+ * A plan that fails the check is removed.</p>
+ *
+ * <p>The cache holds a limited number of plans and evicts the least recently used. It is thread safe.</p> */
+public class PlanCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+    /** The number of steps of a cached plan that are simulated when it is checked. */
+    public static final int CHECK_STEPS = 4;
+    /** A cached plan is only used if my car and the ball are closer than this to where they were expected. */
+    public static final double MAX_DEVIATION = 30;
+
+    /** A cached plan and what is needed to check it. */
+    private static class CachedPlan {
+        public final List<ActionSet> actions;
+        public final double stepsize;
+        public final Vector3 checkedCarPosition;
+        public final Vector3 ballPosition;
+        public final Vector3 finalBallPosition;
+
+        public CachedPlan(List<ActionSet> actions, double stepsize, Vector3 checkedCarPosition, Vector3 ballPosition, Vector3 finalBallPosition) {
+            this.actions = actions;
+            this.stepsize = stepsize;
+            this.checkedCarPosition = checkedCarPosition;
+            this.ballPosition = ballPosition;
+            this.finalBallPosition = finalBallPosition;
+        }
+    }
+
+    /** The cell of the start state and the intention a plan was made for. */
+    private static class Key {
+        public final long cell;
+        public final Object intentionKey;
+
+        public Key(long cell, Object intentionKey) {
+            this.cell = cell;
+            this.intentionKey = intentionKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return cell == other.cell && intentionKey.equals(other.intentionKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(cell) + intentionKey.hashCode();
+        }
+    }
+
+    private final int capacity;
+    private final StateQuantizer quantizer;
+    private final LinkedHashMap<Key, CachedPlan> entries;
+
+    private long hits;
+    private long misses;
+    private long rejections;
+    private long evictions;
+
+    /** Create a PlanCache that holds at most {@link #DEFAULT_CAPACITY} plans and puts start states in the cells of
+     * {@link StateQuantizer#DEFAULT}. */
+    public PlanCache() {
+        this(DEFAULT_CAPACITY, StateQuantizer.DEFAULT);
+    }
+
+    /** @param capacity the maximum number of plans. Must be positive.
+     * @param quantizer the cells start states are put in. */
+    public PlanCache(int capacity, StateQuantizer quantizer) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive.");
+
+        this.capacity = capacity;
+        this.quantizer = quantizer;
+        // Access order makes the first entry the least recently used
+        this.entries = new LinkedHashMap<Key, CachedPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPlan> eldest) {
+                if (size() <= PlanCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /** Look for a plan made for the intention from nearly the same situation. The plan is checked before it is
+     * returned, see {@link PlanCache}.
+     * @param intentionKey identifies the intention. Must not be null.
+     * @return a new TimeLine with the cached plan, or null if there is none or it failed the check. */
+    public TimeLine<ActionSet> get(Situation situation, Object intentionKey, double stepsize) {
+        return get(new PlanningState(situation), intentionKey, stepsize);
+    }
+
+    /** Look for a plan like {@link #get(Situation, Object, double)}, where the situation is given as a PlanningState
+     * at time 0. The state is changed. */
+    TimeLine<ActionSet> get(PlanningState start, Object intentionKey, double stepsize) {
+        Key key = new Key(quantizer.hash(start, 0), intentionKey);
+
+        CachedPlan entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.stepsize != stepsize) {
+                misses++;
+                return null;
+            }
+        }
+
+        if (!isValid(entry, start)) {
+            synchronized (this) {
+                // Another thread may have replaced the entry in the meantime
+                if (entries.get(key) == entry) entries.remove(key);
+                rejections++;
+                misses++;
+            }
+            return null;
+        }
+
+        synchronized (this) {
+            hits++;
+        }
+        return toTimeLine(entry.actions, stepsize);
+    }
+
+    /** Remember a plan made for the intention from the given situation. An older plan with the same key is replaced.
+     * @param intentionKey identifies the intention. Must not be null.
+     * @param plan the plan with one action per step, as returned by a {@link Planner}. */
+    public void put(Situation situation, Object intentionKey, double stepsize, TimeLine<ActionSet> plan) {
+        put(new PlanningState(situation), intentionKey, stepsize, plan);
+    }
+
+    /** Remember a plan like {@link #put(Situation, Object, double, TimeLine)}, where the situation is given as a
+     * PlanningState at time 0. The state is changed. */
+    void put(PlanningState state, Object intentionKey, double stepsize, TimeLine<ActionSet> plan) {
+        if (plan == null || plan.isEmpty()) return;
+
+        List<ActionSet> actions = plan.getItems();
+        Key key = new Key(quantizer.hash(state, 0), intentionKey);
+
+        BallTrajectory trajectory = state.getBallTrajectory();
+        Vector3 ballPosition = trajectory.getPosition(0);
+        Vector3 finalBallPosition = trajectory.getPosition(actions.size() * stepsize);
+        simulateCheck(state, actions, stepsize);
+        CachedPlan entry = new CachedPlan(actions, stepsize, state.getPosition(), ballPosition, finalBallPosition);
+
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    /** Helper method that checks whether a cached plan can be used from the given start state. The state is
+     * changed. */
+    private static boolean isValid(CachedPlan entry, PlanningState start) {
+        BallTrajectory trajectory = start.getBallTrajectory();
+        if (trajectory.getPosition(0).getDistanceTo(entry.ballPosition) > MAX_DEVIATION) return false;
+        Vector3 finalBallPosition = trajectory.getPosition(entry.actions.size() * entry.stepsize);
+        if (finalBallPosition.getDistanceTo(entry.finalBallPosition) > MAX_DEVIATION) return false;
+
+        simulateCheck(start, entry.actions, entry.stepsize);
+        return start.getPosition().getDistanceTo(entry.checkedCarPosition) <= MAX_DEVIATION;
+    }
+
+    /** Helper method that simulates the first {@link #CHECK_STEPS} steps of a plan. */
+    private static void simulateCheck(PlanningState state, List<ActionSet> actions, double stepsize) {
+        int steps = Math.min(CHECK_STEPS, actions.size());
+        for (int i = 0; i < steps; i++) {
+            Simulation.simulate(state, stepsize, actions.get(i));
+        }
+    }
+
+    /** Helper method that places a list of ActionSets in a TimeLine with stepsize interval between each. */
+    private static SteppedTimeLine<ActionSet> toTimeLine(List<ActionSet> sequence, double stepsize) {
+        SteppedTimeLine<ActionSet> timeLine = new SteppedTimeLine<>();
+        double time = 0;
+        for (ActionSet action : sequence) {
+            timeLine.addTimeStep(time, action);
+            time += stepsize;
+        }
+        return timeLine;
+    }
+
+    /** @return the number of lookups that returned a plan. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return the number of lookups that did not return a plan, including those where the plan failed the check. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return the number of cached plans that failed the check. */
+    public synchronized long getRejections() {
+        return rejections;
+    }
+
+    /** @return the number of plans evicted because the cache was full. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** @return the share of lookups that returned a plan, or 0 if there have been none. */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Remove all plans and reset the metrics. */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        rejections = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PlanCache(size: %d/%d, hit rate: %.1f%%, hits: %d, misses: %d, rejected: %d, evicted: %d)",
+                entries.size(), capacity, getHitRate() * 100, hits, misses, rejections, evictions);
+    }
+}
@@ -0,0 +1,42 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.Situation;
+import botenanna.intentions.IntentionFunction;
+import botenanna.math.TimeLine;
+
+import java.util.List;
+
+/** A Planner finds a sequence of actions that steers the agent towards a desired intention defined by an
+ * {@link IntentionFunction}. The sequence has one action per step. Planners are anytime: when the wall-clock budget
+ * runs out, the best sequence found so far is returned. A planner keeps state between searches and must not be used
+ * by two threads at once. See {@link AStar} and {@link MonteCarloTreeSearch}. */
+public interface Planner {
+
+    /** Find a sequence of actions, one per step of {@code stepsize} seconds.
+     * @param timeBudget the wall-clock time in milliseconds the search may use.
+     * @return the sequence, or null if none was found or the thread was interrupted. */
+    TimeLine<ActionSet> plan(Situation situation, IntentionFunction intention, double stepsize, double timeBudget);
+
+    /** Find a sequence of actions like {@link #plan(Situation, IntentionFunction, double, double)}, but warm started
+     * from a seed sequence, usually what is left of the previous plan. Planners that cannot use a seed ignore it.
+     * @param seed the actions of the seed, one per step. */
+    default TimeLine<ActionSet> plan(Situation situation, IntentionFunction intention, double stepsize, double timeBudget, List<ActionSet> seed) {
+        return plan(situation, intention, stepsize, timeBudget);
+    }
+
+    /** Hold each planned action for {@code steps} steps.
+     * @param steps must be positive. */
+    void setMacroSteps(int steps);
+
+    int getMacroSteps();
+
+    /** @return whether the latest search was stopped because it ran out of time. */
+    boolean isDeadlineHit();
+
+    /** @return the number of nodes in the search tree after the latest search. */
+    int getNodeCount();
+
+    /** @return the stats of the latest search, or null if no search has been made. */
+    PlannerStats getLastStats();
+}
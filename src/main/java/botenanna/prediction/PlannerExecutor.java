@@ -0,0 +1,27 @@
+package botenanna.prediction;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** The PlannerExecutor runs planning jobs in the background, so planning does not block the thread that receives
+ * GameTickPackets and returns the bot's input. The threads are daemons, so they never keep the program alive.
+ * Jobs should stop when their thread is interrupted, which is how {@link Future#cancel(boolean)} stops them. */
+public class PlannerExecutor {
+
+    /** Leave a core for the bot's own thread. */
+    public static final int THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "planner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Run a job in the background.
+     * @return a Future that will contain the job's result. */
+    public static <T> Future<T> submit(Callable<T> job) {
+        return executor.submit(job);
+    }
+}
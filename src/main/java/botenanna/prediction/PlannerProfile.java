@@ -0,0 +1,133 @@
+package botenanna.prediction;
+
+import botenanna.math.Histogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** <p>A PlannerProfile aggregates the {@link PlannerStats} of every search made for one kind of intention, so it can
+ * be seen where the planning time goes. The work, depth and wall time of the searches are kept in histograms, and the
+ * ways they ended are counted. Plannings that were answered by the {@link PlanCache} are not searches, and are only
+ * counted as cache hits.</p>
+ *
+ * <p>Profiles are kept in a global registry by name, usually the simple name of the intention's class, see
+ * {@link #record(String, PlannerStats)}. The registry and the profiles are thread safe, since searches are recorded
+ * on the planner threads and read by the display.</p> */
+public class PlannerProfile {
+
+    private static final Map<String, PlannerProfile> profiles = new TreeMap<>();
+
+    private final String name;
+    private final Histogram nodesExpanded = Histogram.exponential(4, 2, 14);
+    private final Histogram nodesSimulated = Histogram.exponential(16, 2, 14);
+    private final Histogram maxDepth = Histogram.linear(0, 1, 17);
+    private final Histogram wallTime = Histogram.exponential(0.25, 2, 10);
+    private long forcedStops;
+    private long deviationsFulfilled;
+    private long deadlinesHit;
+    private long budgetsExhausted;
+    private long nullResults;
+    private long cacheHits;
+
+    public PlannerProfile(String name) {
+        this.name = name;
+    }
+
+    /** Add the stats of a search to this profile. */
+    public synchronized void add(PlannerStats stats) {
+        nodesExpanded.add(stats.getNodesExpanded());
+        nodesSimulated.add(stats.getNodesSimulated());
+        maxDepth.add(stats.getMaxDepth());
+        wallTime.add(stats.getWallTime());
+        if (stats.isForcedStop()) forcedStops++;
+        if (stats.isDeviationFulfilled()) deviationsFulfilled++;
+        if (stats.isDeadlineHit()) deadlinesHit++;
+        if (stats.isBudgetExhausted()) budgetsExhausted++;
+        if (stats.isResultNull()) nullResults++;
+    }
+
+    /** Count a planning that was answered by the {@link PlanCache} instead of a search. */
+    public synchronized void addCacheHit() {
+        cacheHits++;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** @return the number of searches in this profile. */
+    public synchronized long getCount() {
+        return wallTime.getCount();
+    }
+
+    /** @return the number of plannings that were answered by the {@link PlanCache}. */
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /** @return a one line summary with the number of searches, the median and 90th percentile wall time, nodes
+     * expanded and depth, how often the searches hit the deadline or returned null, and the number of cache hits. */
+    public synchronized String toShortString() {
+        return String.format("%s: n=%d time p50/p90 %.1f/%.1f ms, expanded p50 %.0f, depth p50 %.0f, deadline %d, null %d, cached %d",
+                name, getCount(), wallTime.getPercentile(50), wallTime.getPercentile(90),
+                nodesExpanded.getPercentile(50), maxDepth.getPercentile(50), deadlinesHit, nullResults, cacheHits);
+    }
+
+    /** Print every histogram and count of this profile. */
+    public synchronized void dump(PrintStream out) {
+        out.println(String.format("%s (%d searches, %d cache hits)", name, getCount(), cacheHits));
+        out.println(String.format("  wall time (ms)   mean %.2f, max %.2f: %s", wallTime.getMean(), wallTime.getMax(), wallTime));
+        out.println(String.format("  nodes expanded   mean %.1f, max %.0f: %s", nodesExpanded.getMean(), nodesExpanded.getMax(), nodesExpanded));
+        out.println(String.format("  nodes simulated  mean %.1f, max %.0f: %s", nodesSimulated.getMean(), nodesSimulated.getMax(), nodesSimulated));
+        out.println(String.format("  max depth        mean %.1f, max %.0f: %s", maxDepth.getMean(), maxDepth.getMax(), maxDepth));
+        out.println(String.format("  forced stop %d, deviation fulfilled %d, deadline hit %d, budget exhausted %d, null %d",
+                forcedStops, deviationsFulfilled, deadlinesHit, budgetsExhausted, nullResults));
+    }
+
+    /** Add the stats of a search to the profile with the given name, which is created if needed. Null stats are
+     * ignored. */
+    public static void record(String name, PlannerStats stats) {
+        if (stats == null) return;
+        get(name).add(stats);
+    }
+
+    /** Count a cache hit in the profile with the given name, which is created if needed. */
+    public static void recordCacheHit(String name) {
+        get(name).addCacheHit();
+    }
+
+    /** @return the profile with the given name. It is created if needed. */
+    public static PlannerProfile get(String name) {
+        synchronized (profiles) {
+            return profiles.computeIfAbsent(name, PlannerProfile::new);
+        }
+    }
+
+    /** @return the profiles with at least one search or cache hit, ordered by name. */
+    public static List<PlannerProfile> getAll() {
+        List<PlannerProfile> all = new ArrayList<>();
+        synchronized (profiles) {
+            for (PlannerProfile profile : profiles.values()) {
+                if (profile.getCount() > 0 || profile.getCacheHits() > 0) all.add(profile);
+            }
+        }
+        return all;
+    }
+
+    /** Print every profile. */
+    public static void dumpAll(PrintStream out) {
+        for (PlannerProfile profile : getAll()) {
+            profile.dump(out);
+        }
+    }
+
+    /** Remove all profiles. */
+    public static void clear() {
+        synchronized (profiles) {
+            profiles.clear();
+        }
+    }
+}
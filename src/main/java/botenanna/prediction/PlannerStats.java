@@ -0,0 +1,82 @@
+package botenanna.prediction;
+
+/** PlannerStats describe a single search of a {@link Planner}: how much work it did, how long it took, and how it
+ * ended. They are collected per intention in {@link PlannerProfile}s. */
+public class PlannerStats {
+
+    private final int nodesExpanded;
+    private final int nodesSimulated;
+    private final int maxDepth;
+    private final double wallTime;
+    private final boolean forcedStop;
+    private final boolean deviationFulfilled;
+    private final boolean deadlineHit;
+    private final boolean budgetExhausted;
+    private final boolean resultNull;
+
+    /** @param nodesExpanded the number of nodes that got children during the search.
+     * @param nodesSimulated the number of edges that were simulated, including those of pruned nodes.
+     * @param maxDepth the number of edges from the start to the deepest node.
+     * @param wallTime the wall-clock time of the search in milliseconds.
+     * @param forcedStop whether the returned sequence ends because it reached the maximum length.
+     * @param deviationFulfilled whether the returned sequence ends because the intention is fulfilled.
+     * @param deadlineHit whether the search ran out of time.
+     * @param budgetExhausted whether the search ran out of nodes.
+     * @param resultNull whether the search returned null. */
+    public PlannerStats(int nodesExpanded, int nodesSimulated, int maxDepth, double wallTime, boolean forcedStop,
+                        boolean deviationFulfilled, boolean deadlineHit, boolean budgetExhausted, boolean resultNull) {
+        this.nodesExpanded = nodesExpanded;
+        this.nodesSimulated = nodesSimulated;
+        this.maxDepth = maxDepth;
+        this.wallTime = wallTime;
+        this.forcedStop = forcedStop;
+        this.deviationFulfilled = deviationFulfilled;
+        this.deadlineHit = deadlineHit;
+        this.budgetExhausted = budgetExhausted;
+        this.resultNull = resultNull;
+    }
+
+    public int getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public int getNodesSimulated() {
+        return nodesSimulated;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** @return the wall-clock time of the search in milliseconds. */
+    public double getWallTime() {
+        return wallTime;
+    }
+
+    public boolean isForcedStop() {
+        return forcedStop;
+    }
+
+    public boolean isDeviationFulfilled() {
+        return deviationFulfilled;
+    }
+
+    public boolean isDeadlineHit() {
+        return deadlineHit;
+    }
+
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public boolean isResultNull() {
+        return resultNull;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlannerStats(expanded: %d, simulated: %d, depth: %d, time: %.2f ms, forced stop: %b, " +
+                "deviation: %b, deadline: %b, budget: %b, null: %b)", nodesExpanded, nodesSimulated, maxDepth, wallTime,
+                forcedStop, deviationFulfilled, deadlineHit, budgetExhausted, resultNull);
+    }
+}
@@ -0,0 +1,92 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+
+/** <p>A PlanningBatch holds a number of {@link PlanningState}s as primitive arrays, one array per component, so an
+ * intention function can score all of them in one tight loop, see
+ * {@link botenanna.intentions.IntentionFunction#compute(PlanningBatch, double[])}. A planner usually fills a batch with
+ * the children of a node.</p>
+ *
+ * <p>The arrays are copies made when a state is added, while the states themselves are kept for what the arrays do
+ * not cover, such as the ball. The states must not change while they are in the batch. A batch is reused by clearing
+ * it, and grows as needed.</p> */
+public class PlanningBatch {
+
+    public double[] px, py, pz;
+    public double[] vx, vy, vz;
+    public double[] fx, fy, fz;
+    public double[] time;
+
+    private PlanningState[] states;
+    private int size;
+
+    public PlanningBatch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive.");
+        allocate(capacity);
+    }
+
+    /** Remove all states from the batch. */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Add a state to the end of the batch. */
+    public void add(PlanningState state) {
+        if (size == states.length) allocate(size * 2);
+        int i = size++;
+        px[i] = state.px;
+        py[i] = state.py;
+        pz[i] = state.pz;
+        vx[i] = state.vx;
+        vy[i] = state.vy;
+        vz[i] = state.vz;
+        fx[i] = state.fx;
+        fy[i] = state.fy;
+        fz[i] = state.fz;
+        time[i] = state.time;
+        states[i] = state;
+    }
+
+    /** @return the number of states in the batch. Only this many elements of the arrays are used. */
+    public int size() {
+        return size;
+    }
+
+    /** @return the i'th state of the batch. */
+    public PlanningState getState(int i) {
+        return states[i];
+    }
+
+    /** @return the position of the ball at the time of the i'th state. */
+    public Vector3 getBallPosition(int i) {
+        return states[i].getBallPosition();
+    }
+
+    /** @return the velocity of the ball at the time of the i'th state. */
+    public Vector3 getBallVelocity(int i) {
+        return states[i].getBallVelocity();
+    }
+
+    /** Helper method that creates or grows the arrays, keeping the states already added. */
+    private void allocate(int capacity) {
+        px = grow(px, capacity);
+        py = grow(py, capacity);
+        pz = grow(pz, capacity);
+        vx = grow(vx, capacity);
+        vy = grow(vy, capacity);
+        vz = grow(vz, capacity);
+        fx = grow(fx, capacity);
+        fy = grow(fy, capacity);
+        fz = grow(fz, capacity);
+        time = grow(time, capacity);
+        PlanningState[] newStates = new PlanningState[capacity];
+        if (states != null) System.arraycopy(states, 0, newStates, 0, size);
+        states = newStates;
+    }
+
+    private double[] grow(double[] array, int capacity) {
+        double[] newArray = new double[capacity];
+        if (array != null) System.arraycopy(array, 0, newArray, 0, size);
+        return newArray;
+    }
+}
@@ -0,0 +1,204 @@
+package botenanna.prediction;
+
+import botenanna.game.BoostPad;
+import botenanna.game.Car;
+import botenanna.game.Situation;
+import botenanna.math.Vector3;
+
+/** <p>The PlanningState is the compact, mutable state a planner works on: my car made of primitives, the time spent
+ * since the start of the planning, and references to the ball's trajectory and the boost pads of the situation the
+ * planning started from. Those are shared by every state of a search and never changed.</p>
+ *
+ * <p>A PlanningState is moved forwards with {@link Simulation#simulate(PlanningState, double, botenanna.game.ActionSet)},
+ * which changes it in place. Compared to a {@link Situation} nothing but my car is simulated, and nothing that depends
+ * on the ball is calculated, so it costs a fraction of a Situation. Intention functions read it directly, see
+ * {@link botenanna.intentions.IntentionFunction#compute(PlanningState)}. When a full Situation is needed anyway,
+ * {@link #toSituation()} creates one.</p> */
+public class PlanningState {
+
+    // My car
+    public double px, py, pz;
+    public double vx, vy, vz;
+    public double ax, ay, az;
+    public double pitch, yaw, roll;
+    public double fx, fy, fz;
+    public int boost;
+    public boolean midAir;
+    public boolean hasJumped;
+    public boolean hasDoubleJumped;
+
+    /** The seconds spent since the start of the planning. */
+    public double time;
+
+    private Situation origin;
+    private BallTrajectory ballTrajectory;
+    private BallDepthCache ballByDepth;
+    private BoostPad[] boostPads;
+
+    public PlanningState() {
+    }
+
+    public PlanningState(Situation situation) {
+        set(situation);
+    }
+
+    public PlanningState(Situation situation, double depthTime) {
+        set(situation, depthTime);
+    }
+
+    /** Create a PlanningState at time 0 with the given ball and boost pads, but no origin situation. My car starts at
+     * rest at the centre and should be set afterwards. Intention functions that need a Situation cannot be used. */
+    PlanningState(BallTrajectory ballTrajectory, BoostPad[] boostPads) {
+        this.ballTrajectory = ballTrajectory;
+        this.boostPads = boostPads;
+        setYaw(0);
+    }
+
+    /** Set this PlanningState to my car of a Situation at time 0. The situation becomes the origin of the planning. */
+    public void set(Situation situation) {
+        Car car = situation.getMyCar();
+        Vector3 pos = car.getPosition();
+        Vector3 vel = car.getVelocity();
+        Vector3 acc = car.getAcceleration();
+        px = pos.x;
+        py = pos.y;
+        pz = pos.z;
+        vx = vel.x;
+        vy = vel.y;
+        vz = vel.z;
+        ax = acc.x;
+        ay = acc.y;
+        az = acc.z;
+        Vector3 rotation = car.getRotation();
+        pitch = rotation.pitch;
+        roll = rotation.roll;
+        setYaw(rotation.yaw);
+        boost = car.getBoost();
+        midAir = car.isMidAir();
+        hasJumped = car.isHasJumped();
+        hasDoubleJumped = car.hasDoubleJumped();
+        time = 0;
+        origin = situation;
+        ballTrajectory = situation.getBallTrajectory();
+        ballByDepth = null;
+        boostPads = situation.getBoostPads();
+    }
+
+    /** Set this PlanningState to my car of a Situation at time 0, like {@link #set(Situation)}, and look up the ball
+     * once per depth of the search. States copied from this one share the lookups, see {@link BallDepthCache}.
+     * @param depthTime the seconds between two depths of the search. */
+    public void set(Situation situation, double depthTime) {
+        set(situation);
+        ballByDepth = new BallDepthCache(ballTrajectory, depthTime);
+    }
+
+    /** Set this PlanningState to be identical to another PlanningState. */
+    public void set(PlanningState other) {
+        px = other.px;
+        py = other.py;
+        pz = other.pz;
+        vx = other.vx;
+        vy = other.vy;
+        vz = other.vz;
+        ax = other.ax;
+        ay = other.ay;
+        az = other.az;
+        pitch = other.pitch;
+        yaw = other.yaw;
+        roll = other.roll;
+        fx = other.fx;
+        fy = other.fy;
+        fz = other.fz;
+        boost = other.boost;
+        midAir = other.midAir;
+        hasJumped = other.hasJumped;
+        hasDoubleJumped = other.hasDoubleJumped;
+        time = other.time;
+        origin = other.origin;
+        ballTrajectory = other.ballTrajectory;
+        ballByDepth = other.ballByDepth;
+        boostPads = other.boostPads;
+    }
+
+    /** Let go of the situation the planning started from, so it can be garbage collected. The state cannot be used
+     * until it is set again. */
+    void clearOrigin() {
+        origin = null;
+        ballTrajectory = null;
+        ballByDepth = null;
+        boostPads = null;
+    }
+
+    /** Set the yaw and update the front vector. */
+    public void setYaw(double yaw) {
+        this.yaw = yaw;
+        fx = Math.cos(pitch) * Math.cos(yaw);
+        fy = Math.cos(pitch) * Math.sin(yaw);
+        fz = Math.sin(pitch);
+    }
+
+    public Vector3 getPosition() {
+        return new Vector3(px, py, pz);
+    }
+
+    public Vector3 getVelocity() {
+        return new Vector3(vx, vy, vz);
+    }
+
+    public Vector3 getFrontVector() {
+        return new Vector3(fx, fy, fz);
+    }
+
+    /** @return the speed of my car. */
+    public double getSpeed() {
+        return Math.sqrt(vx * vx + vy * vy + vz * vz);
+    }
+
+    /** @return the position of the ball at the time of this state. */
+    public Vector3 getBallPosition() {
+        if (ballByDepth != null) return ballByDepth.getPosition(time);
+        return ballTrajectory.getPosition(time);
+    }
+
+    /** @return the velocity of the ball at the time of this state. */
+    public Vector3 getBallVelocity() {
+        if (ballByDepth != null) return ballByDepth.getVelocity(time);
+        return ballTrajectory.getVelocity(time);
+    }
+
+    /** @return the trajectory of the ball from the start of the planning. It is shared and starts at time 0. */
+    public BallTrajectory getBallTrajectory() {
+        return ballTrajectory;
+    }
+
+    /** @return the boost pads of the situation the planning started from. They are shared and must not be changed. */
+    public BoostPad[] getBoostPads() {
+        return boostPads;
+    }
+
+    /** @return the situation the planning started from. */
+    public Situation getOrigin() {
+        return origin;
+    }
+
+    /** @return a new Situation at the time of this state. The enemy car is moved forwards with its current velocity
+     * and the boost pads are those of the origin. This is expensive and only meant for code that needs a Situation. */
+    public Situation toSituation() {
+        Car car = origin.getMyCar();
+        car.setPosition(getPosition());
+        car.setVelocity(getVelocity());
+        car.setAcceleration(new Vector3(ax, ay, az));
+        car.setRotation(new Vector3(roll, pitch, yaw));
+        car.setBoost(boost);
+        car.setIsMidAir(midAir);
+        car.setHasJumped(hasJumped);
+        car.setHasDoubleJumped(hasDoubleJumped);
+
+        BallTrajectory trajectory = ballTrajectory.shift(time);
+        Car enemyCar = Simulation.steppedCar(origin.getEnemyCar(), time);
+        car.setBallDependentVariables(trajectory);
+        enemyCar.setBallDependentVariables(trajectory);
+
+        return new Situation(car, enemyCar, trajectory.getBall(0), trajectory, origin.getBoostPads());
+    }
+}
@@ -18,14 +18,106 @@ public class Simulation {
         if (stepsize < 0) throw new IllegalArgumentException("Step size must be more than zero. Current Step size is: "+stepsize);
 
         Rigidbody simulatedBall = simulateBall(situation.getBall(), stepsize);
-        Car simulatedMyCar = simulateCarActions(situation.getMyCar(), action,  simulatedBall, stepsize);
+        BallTrajectory simulatedTrajectory = situation.getBallTrajectory().shift(stepsize);
+        Car simulatedMyCar = simulateCarActions(situation.getMyCar(), action, stepsize);
         Car simulatedEnemyCar = steppedCar(situation.getEnemyCar(), stepsize);
         BoostPad[] simulatedBoostPads = simulateBoostPads(situation.getBoostPads(), simulatedEnemyCar, simulatedMyCar, stepsize);
 
-        simulatedMyCar.setBallDependentVariables(simulatedBall);
-        simulatedEnemyCar.setBallDependentVariables(simulatedBall);
+        simulatedMyCar.setBallDependentVariables(simulatedTrajectory);
+        simulatedEnemyCar.setBallDependentVariables(simulatedTrajectory);
 
-        return new Situation(simulatedMyCar, simulatedEnemyCar, simulatedBall , simulatedBoostPads);
+        return new Situation(simulatedMyCar, simulatedEnemyCar, simulatedBall, simulatedTrajectory, simulatedBoostPads);
+    }
+
+    /** Simulates my car of a PlanningState forward a stepsize measured in seconds. The state is changed in place and
+     * nothing is allocated. The car moves like in {@link #simulate(Situation, double, ActionSet)}, and picks up boost
+     * from the boost pads of the situation the planning started from.
+     * @return the given state. */
+    public static PlanningState simulate(PlanningState state, double stepsize, ActionSet action) {
+        if (stepsize < 0) throw new IllegalArgumentException("Step size must be more than zero. Current Step size is: "+stepsize);
+
+        boolean boosting = (action.isBoostDepressed() && state.boost != 0);
+
+        if (!state.midAir) {
+            // We are on the ground
+            double speed = state.getSpeed();
+            double newYaw = state.yaw + (1.325680896 + 0.0002869694124 * speed) * action.getSteer() * stepsize;
+            newYaw %= Math.PI; // Clamp to be between -PI and PI
+            state.setYaw(newYaw);
+
+            double strength;
+            double dirX, dirY, dirZ;
+            if (boosting) {
+                strength = ACCELERATION_BOOST;
+                dirX = state.fx;
+                dirY = state.fy;
+                dirZ = state.fz;
+            } else if (action.getThrottle() != 0) {
+                strength = getAccelerationStrength(state, (int) action.getThrottle());
+                dirX = state.fx;
+                dirY = state.fy;
+                dirZ = state.fz;
+            } else if (speed != 0) {
+                // we assume our velocity is never sideways
+                strength = DECELERATION;
+                dirX = state.vx * (1.0 / speed);
+                dirY = state.vy * (1.0 / speed);
+                dirZ = state.vz * (1.0 / speed);
+            } else {
+                strength = 0;
+                dirX = dirY = dirZ = 0;
+            }
+
+            state.ax = dirX * strength;
+            state.ay = dirY * strength;
+            state.az = dirZ * strength;
+
+            if (action.getSteer() != 0) {
+                state.ax *= TURN_ACCELERATION_DECREASE;
+                state.ay *= TURN_ACCELERATION_DECREASE;
+                state.az *= TURN_ACCELERATION_DECREASE;
+            }
+        }
+
+        double accZ = state.midAir ? state.az + PhysicsKernel.GRAVITY_Z : state.az;
+        state.px = PhysicsKernel.position(state.px, state.vx, state.ax, stepsize);
+        state.py = PhysicsKernel.position(state.py, state.vy, state.ay, stepsize);
+        state.pz = PhysicsKernel.position(state.pz, state.vz, accZ, stepsize);
+        state.vx = PhysicsKernel.velocity(state.vx, state.ax, stepsize);
+        state.vy = PhysicsKernel.velocity(state.vy, state.ay, stepsize);
+        state.vz = PhysicsKernel.velocity(state.vz, accZ, stepsize);
+        if (state.pz < Car.GROUND_OFFSET) {
+            //Hit ground
+            state.pz = Car.GROUND_OFFSET;
+            state.vz = 0;
+            state.midAir = false;
+        }
+
+        for (BoostPad pad : state.getBoostPads()) {
+            Vector3 padPos = pad.getPosition();
+            double dx = padPos.x - state.px;
+            double dy = padPos.y - state.py;
+            double dz = padPos.z - state.pz;
+            if (Math.sqrt(dx * dx + dy * dy + dz * dz) < BoostPad.PAD_RADIUS) {
+                state.boost = Math.min(Math.max(0, state.boost + pad.getBoostAmount()), 100);
+            }
+        }
+
+        state.time += stepsize;
+        return state;
+    }
+
+    /** Like {@link #getAccelerationStrength(Car, int, boolean)} for the car of a PlanningState. */
+    private static double getAccelerationStrength(PlanningState state, int dir) {
+        double frontSqr = state.fx * state.fx + state.fy * state.fy + state.fz * state.fz;
+        double velProjFrontSize = (state.vx * state.fx + state.vy * state.fy + state.vz * state.fz) / frontSqr;
+        double velDir = (velProjFrontSize >= 0) ? 1 : -1;
+        double parallelX = state.fx * velProjFrontSize;
+        double parallelY = state.fy * velProjFrontSize;
+        double parallelZ = state.fz * velProjFrontSize;
+        double velLength = Math.sqrt(parallelX * parallelX + parallelY * parallelY + parallelZ * parallelZ);
+
+        return MAX_VELOCITY_BOOST * dir - velLength * velDir;
     }
 
     /** Simulates the boostPads, if any of the cars can pick up boost and they are stepped close to a pad deactivate them
@@ -59,7 +151,7 @@ public class Simulation {
     }
 
     /** @return a new car which has been moved forwards. */
-    private static Car steppedCar(Car car, double step) {
+    static Car steppedCar(Car car, double step) {
         Car newCar = Physics.stepBody(car, step, car.isMidAir());
         Vector3 pos = newCar.getPosition();
         if (pos.z < Car.GROUND_OFFSET) {
@@ -74,7 +166,7 @@ public class Simulation {
     /** Simulates a car with actions **
      * @param action the current actions from the Agent
      * @return a Car simulated forward in  the new situation     */
-    private static Car simulateCarActions(Car car, ActionSet action, Rigidbody ball, double delta){
+    private static Car simulateCarActions(Car car, ActionSet action, double delta){
 
         boolean boosting = (action.isBoostDepressed() && car.getBoost() != 0);
 
@@ -104,10 +196,7 @@ public class Simulation {
             car.setAcceleration(acceleration);
         }
 
-        car = steppedCar(car, delta);
-        car.setBallDependentVariables(ball);
-
-        return car;
+        return steppedCar(car, delta);
     }
 
     /** @param dir Direction of acceleration. 1 for forwards, -1 for backwards. */
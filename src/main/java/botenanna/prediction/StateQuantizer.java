@@ -0,0 +1,103 @@
+package botenanna.prediction;
+
+import botenanna.game.Car;
+import botenanna.math.Vector3;
+
+/** <p>The StateQuantizer puts car states into cells, so states that are almost the same get the same hash. The
+ * planner uses it to detect when two sequences of actions lead to nearly the same car state, see {@link AStar}.</p>
+ *
+ * <p>The hash covers the car's position, velocity, yaw, boost and jump flags, and the depth of the planning step. The
+ * previous action is not included, so states that only differ in how they were reached are merged.</p> */
+public class StateQuantizer {
+
+    public static final StateQuantizer DEFAULT = new StateQuantizer(20, 50, Math.PI / 32, 10);
+
+    private final double positionCell;
+    private final double velocityCell;
+    private final double yawCell;
+    private final double boostCell;
+
+    /** Create a StateQuantizer with the given cell sizes. Larger cells merge more states.
+     * @param positionCell the size of position cells in uu.
+     * @param velocityCell the size of velocity cells in uu/s.
+     * @param yawCell the size of yaw cells in radians.
+     * @param boostCell the size of boost cells in boost amount. */
+    public StateQuantizer(double positionCell, double velocityCell, double yawCell, double boostCell) {
+        if (positionCell <= 0 || velocityCell <= 0 || yawCell <= 0 || boostCell <= 0) {
+            throw new IllegalArgumentException("Cell sizes must be positive.");
+        }
+
+        this.positionCell = positionCell;
+        this.velocityCell = velocityCell;
+        this.yawCell = yawCell;
+        this.boostCell = boostCell;
+    }
+
+    /** @return a hash of the cell the car's state is in at the given planning depth. */
+    public long hash(Car car, int depth) {
+        Vector3 pos = car.getPosition();
+        Vector3 vel = car.getVelocity();
+
+        long hash = depth;
+        hash = 31 * hash + cell(pos.x, positionCell);
+        hash = 31 * hash + cell(pos.y, positionCell);
+        hash = 31 * hash + cell(pos.z, positionCell);
+        hash = 31 * hash + cell(vel.x, velocityCell);
+        hash = 31 * hash + cell(vel.y, velocityCell);
+        hash = 31 * hash + cell(vel.z, velocityCell);
+        hash = 31 * hash + cell(car.getRotation().yaw, yawCell);
+        hash = 31 * hash + cell(car.getBoost(), boostCell);
+        hash = 31 * hash + (car.isHasJumped() ? 1 : 0);
+        hash = 31 * hash + (car.hasDoubleJumped() ? 1 : 0);
+        hash = 31 * hash + (car.isMidAir() ? 1 : 0);
+        return mix(hash);
+    }
+
+    /** @return a hash of the cell the car of a PlanningState is in at the given planning depth. It is the same as the
+     * hash of an equal Car. */
+    public long hash(PlanningState state, int depth) {
+        long hash = depth;
+        hash = 31 * hash + cell(state.px, positionCell);
+        hash = 31 * hash + cell(state.py, positionCell);
+        hash = 31 * hash + cell(state.pz, positionCell);
+        hash = 31 * hash + cell(state.vx, velocityCell);
+        hash = 31 * hash + cell(state.vy, velocityCell);
+        hash = 31 * hash + cell(state.vz, velocityCell);
+        hash = 31 * hash + cell(state.yaw, yawCell);
+        hash = 31 * hash + cell(state.boost, boostCell);
+        hash = 31 * hash + (state.hasJumped ? 1 : 0);
+        hash = 31 * hash + (state.hasDoubleJumped ? 1 : 0);
+        hash = 31 * hash + (state.midAir ? 1 : 0);
+        return mix(hash);
+    }
+
+    public double getPositionCell() {
+        return positionCell;
+    }
+
+    public double getVelocityCell() {
+        return velocityCell;
+    }
+
+    public double getYawCell() {
+        return yawCell;
+    }
+
+    public double getBoostCell() {
+        return boostCell;
+    }
+
+    private static long cell(double value, double cellSize) {
+        return (long) Math.floor(value / cellSize);
+    }
+
+    /** Spread the bits of the hash, so nearby cells do not end up next to each other in a hash table. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package botenanna.prediction;
+
+import java.util.Arrays;
+
+/** A hash table from state hashes to planner nodes, stored in primitive arrays with open addressing. Clearing is
+ * cheap, since entries from earlier searches are recognised by their generation instead of being erased. */
+class TranspositionTable {
+
+    private long[] keys;
+    private int[] nodes;
+    private int[] generations;
+    private int generation = 1;
+    private int size;
+
+    TranspositionTable(int capacity) {
+        allocate(Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1);
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        generation++;
+        size = 0;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    /** @return the node stored with the key, or -1 if there is none. */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = (int) key & mask; generations[i] == generation; i = (i + 1) & mask) {
+            if (keys[i] == key) return nodes[i];
+        }
+        return -1;
+    }
+
+    /** Store a node with the key, replacing any node stored with it before. */
+    void put(long key, int node) {
+        if (2 * (size + 1) > keys.length) grow();
+
+        int mask = keys.length - 1;
+        int i = (int) key & mask;
+        while (generations[i] == generation) {
+            if (keys[i] == key) {
+                nodes[i] = node;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+        generations[i] = generation;
+        size++;
+    }
+
+    /** Helper method that doubles the capacity and moves the current entries. */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldNodes = nodes;
+        int[] oldGenerations = generations;
+        int oldGeneration = generation;
+
+        allocate(keys.length * 2);
+        generation = 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldGenerations[i] == oldGeneration) put(oldKeys[i], oldNodes[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        nodes = new int[capacity];
+        generations = new int[capacity];
+    }
+}
@@ -0,0 +1,160 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.BoostPad;
+import botenanna.game.Car;
+import botenanna.game.Situation;
+import botenanna.intentions.IntentionFunction;
+import botenanna.math.SteppedTimeLine;
+import botenanna.math.Vector3;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class AStarTest {
+
+    private static final double STEPSIZE = 0.1;
+
+    private PlanningState start;
+
+    @Before
+    public void setUp() {
+        Rigidbody ball = new Rigidbody();
+        ball.setPosition(new Vector3(0, 2000, 92));
+        start = new PlanningState(new BallTrajectory(ball), new BoostPad[0]);
+
+        // My car drives along the y-axis
+        start.pz = Car.GROUND_OFFSET;
+        start.vy = 1000;
+        start.boost = 50;
+        start.setYaw(Math.PI / 2);
+    }
+
+    @Test
+    public void findsPlanTowardsReachablePoint() {
+        DriveToPoint intention = new DriveToPoint(0, 300, 50);
+        AStar astar = new AStar();
+        SteppedTimeLine<ActionSet> plan = astar.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertNotNull(plan);
+        assertFalse(plan.isEmpty());
+        assertTrue(intention.isDeviationFulfilled(replay(plan)));
+        assertFalse(astar.isBudgetExhausted());
+    }
+
+    @Test
+    public void startThatIsAlreadyFulfilledGivesNonEmptyPlan() {
+        DriveToPoint intention = new DriveToPoint(0, 0, 200);
+        assertTrue(intention.isDeviationFulfilled(start));
+
+        SteppedTimeLine<ActionSet> plan = new AStar().findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertNotNull(plan);
+        assertFalse(plan.isEmpty());
+    }
+
+    @Test
+    public void exhaustedNodeBudgetGivesBestPlanSoFar() {
+        DriveToPoint intention = new DriveToPoint(0, 5000, 50);
+        AStar astar = new AStar(30);
+        SteppedTimeLine<ActionSet> plan = astar.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertTrue(astar.isBudgetExhausted());
+        assertEquals(30, astar.getNodeCount());
+        assertNotNull(plan);
+        assertFalse(plan.isEmpty());
+        assertTrue(intention.compute(replay(plan)) < intention.compute(start));
+    }
+
+    @Test
+    public void reusedArenaGivesSamePlan() {
+        DriveToPoint intention = new DriveToPoint(-400, 350, 50);
+        DriveToPoint other = new DriveToPoint(300, 300, 50);
+        AStar reused = new AStar(500);
+        reused.findSequence(start, other, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+        SteppedTimeLine<ActionSet> plan = reused.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+        SteppedTimeLine<ActionSet> fresh = new AStar(500).findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertNotNull(fresh);
+        assertEquals(fresh.getItems(), plan.getItems());
+    }
+
+    @Test
+    public void parallelExpansionGivesSamePlan() {
+        DriveToPoint intention = new DriveToPoint(-400, 350, 50);
+        AStar parallel = new AStar();
+        parallel.setParallelThreshold(1);
+        SteppedTimeLine<ActionSet> plan = parallel.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+        SteppedTimeLine<ActionSet> sequential = new AStar().findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertNotNull(sequential);
+        assertEquals(sequential.getItems(), plan.getItems());
+    }
+
+    @Test
+    public void transpositionsPruneNodesButKeepFindingPlans() {
+        DriveToPoint intention = new DriveToPoint(0, 300, 50);
+        AStar withoutTable = new AStar(AStar.DEFAULT_MAX_NODES, null);
+        SteppedTimeLine<ActionSet> unpruned = withoutTable.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+        AStar withTable = new AStar(AStar.DEFAULT_MAX_NODES, new StateQuantizer(100, 200, Math.PI / 8, 50));
+        SteppedTimeLine<ActionSet> pruned = withTable.findSequence(start, intention, STEPSIZE, Double.POSITIVE_INFINITY, Collections.emptyList());
+
+        assertEquals(0, withoutTable.getPrunedCount());
+        assertTrue(withTable.getPrunedCount() > 0);
+        assertTrue(withTable.getNodeCount() < withoutTable.getNodeCount());
+        assertTrue(intention.isDeviationFulfilled(replay(unpruned)));
+        assertTrue(intention.isDeviationFulfilled(replay(pruned)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveMaxNodesThrows() {
+        new AStar(0);
+    }
+
+    /** Helper function that moves the start state through a plan.
+     * @return the state at the end of the plan. */
+    private PlanningState replay(SteppedTimeLine<ActionSet> plan) {
+        PlanningState state = new PlanningState();
+        state.set(start);
+        for (ActionSet action : plan.getItems()) {
+            Simulation.simulate(state, STEPSIZE, action);
+        }
+        return state;
+    }
+
+    /** An intention to drive over a point on the ground. The value is the distance left. */
+    private static class DriveToPoint implements IntentionFunction {
+
+        private final double x, y;
+        private final double radius;
+
+        DriveToPoint(double x, double y, double radius) {
+            this.x = x;
+            this.y = y;
+            this.radius = radius;
+        }
+
+        @Override
+        public double compute(PlanningState state) {
+            return Math.hypot(x - state.px, y - state.py);
+        }
+
+        @Override
+        public boolean isDeviationFulfilled(PlanningState state) {
+            return compute(state) <= radius;
+        }
+
+        @Override
+        public double compute(Situation situation, double timeSpent) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isDeviationFulfilled(Situation situation, double timeSpent) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package botenanna.prediction;
+
+import botenanna.game.Arena;
+import botenanna.game.Ball;
+import botenanna.math.Vector3;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BatchBallPredictorTest {
+
+    private static final int LANES = 200;
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    public void advanceInStepsMatchesBallPathIntegrator() {
+        Rigidbody[] balls = randomBalls(new Random(8));
+        BatchBallPredictor batch = new BatchBallPredictor(LANES);
+        BallPathIntegrator[] integrators = new BallPathIntegrator[LANES];
+        for (int i = 0; i < LANES; i++) {
+            batch.set(i, balls[i]);
+            integrators[i] = new BallPathIntegrator(balls[i], false);
+        }
+
+        // Three seconds in ticks of 1/60 s
+        for (int step = 0; step < 180; step++) {
+            batch.advance(1 / 60d);
+            for (BallPathIntegrator integrator : integrators) {
+                integrator.advance(1 / 60d);
+            }
+        }
+
+        for (int i = 0; i < LANES; i++) {
+            assertLaneEquals(i, integrators[i], batch);
+        }
+    }
+
+    @Test
+    public void advanceInOneStepMatchesBallPathIntegrator() {
+        Rigidbody[] balls = randomBalls(new Random(11));
+        BatchBallPredictor batch = new BatchBallPredictor(LANES);
+        for (int i = 0; i < LANES; i++) {
+            batch.set(i, balls[i]);
+        }
+
+        batch.advance(3);
+
+        for (int i = 0; i < LANES; i++) {
+            BallPathIntegrator integrator = new BallPathIntegrator(balls[i], false);
+            integrator.advance(3);
+            assertLaneEquals(i, integrator, batch);
+        }
+    }
+
+    @Test
+    public void newLanesRestAtCentre() {
+        BatchBallPredictor batch = new BatchBallPredictor(3);
+        batch.advance(1);
+
+        assertEquals(3, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(new Vector3(0, 0, Ball.RADIUS), batch.getPosition(i));
+            assertEquals(new Vector3(), batch.getVelocity(i));
+            assertTrue(batch.isRolling(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void advanceBackwardsThrows() {
+        new BatchBallPredictor(1).advance(-1);
+    }
+
+    /** Helper function that creates balls spread over the field. Every fourth ball is rolling. */
+    private static Rigidbody[] randomBalls(Random random) {
+        Rigidbody[] balls = new Rigidbody[LANES];
+        for (int i = 0; i < LANES; i++) {
+            boolean rolling = i % 4 == 0;
+            double x = (random.nextDouble() - 0.5) * (Arena.WIDTH - 2 * Ball.RADIUS);
+            double y = (random.nextDouble() - 0.5) * (Arena.LENGTH - 2 * Ball.RADIUS);
+            double z = rolling ? Ball.RADIUS : Ball.RADIUS + random.nextDouble() * 1500;
+            double vz = rolling ? 0 : (random.nextDouble() - 0.5) * 2000;
+
+            balls[i] = new Rigidbody();
+            balls[i].setPosition(new Vector3(x, y, z));
+            balls[i].setVelocity(new Vector3((random.nextDouble() - 0.5) * 4000, (random.nextDouble() - 0.5) * 4000, vz));
+        }
+        return balls;
+    }
+
+    private static void assertLaneEquals(int lane, BallPathIntegrator expected, BatchBallPredictor actual) {
+        assertEquals("x of lane " + lane, expected.getPositionX(), actual.getPositionX(lane), TOLERANCE);
+        assertEquals("y of lane " + lane, expected.getPositionY(), actual.getPositionY(lane), TOLERANCE);
+        assertEquals("z of lane " + lane, expected.getPositionZ(), actual.getPositionZ(lane), TOLERANCE);
+        assertEquals("velocity x of lane " + lane, expected.getVelocityX(), actual.getVelocityX(lane), TOLERANCE);
+        assertEquals("velocity y of lane " + lane, expected.getVelocityY(), actual.getVelocityY(lane), TOLERANCE);
+        assertEquals("velocity z of lane " + lane, expected.getVelocityZ(), actual.getVelocityZ(lane), TOLERANCE);
+        assertEquals("rolling of lane " + lane, expected.isRolling(), actual.isRolling(lane));
+    }
+}
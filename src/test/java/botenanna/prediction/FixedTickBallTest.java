@@ -0,0 +1,99 @@
+package botenanna.prediction;
+
+import botenanna.math.Vector3;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedTickBallTest {
+
+    private Rigidbody ball;
+
+    @Before
+    public void setUp() {
+        // A ball that bounces off the ground and the walls within a few seconds
+        ball = new Rigidbody();
+        ball.setPosition(new Vector3(1200, -3100, 640));
+        ball.setVelocity(new Vector3(2300, -1700, 450));
+    }
+
+    @Test
+    public void tenTicksEqualsFourThenSix() {
+        FixedTickBall once = new FixedTickBall(ball, 0);
+        once.advance(10);
+
+        FixedTickBall twice = new FixedTickBall(ball, 0);
+        twice.advance(4);
+        twice.advance(6);
+
+        assertEquals(10, twice.getTick());
+        assertEquals(once, twice);
+        assertEquals(once.getStateHash(), twice.getStateHash());
+    }
+
+    @Test
+    public void splitAdvanceEqualsSingleAdvanceAcrossBounces() {
+        FixedTickBall once = new FixedTickBall(ball, 0);
+        once.advance(6 * FixedTimestep.TICKS_PER_SECOND);
+
+        FixedTickBall split = new FixedTickBall(ball, 0);
+        split.advance(1);
+        split.advance(250);
+        split.advanceTo(6 * FixedTimestep.TICKS_PER_SECOND);
+
+        assertEquals(once, split);
+        assertEquals(once.getStateHash(), split.getStateHash());
+    }
+
+    @Test
+    public void twoRunsHashTheSame() {
+        FixedTickBall first = new FixedTickBall(ball, 0);
+        FixedTickBall second = new FixedTickBall(ball, 0);
+        first.advance(1000);
+        second.advance(1000);
+
+        assertEquals(first.getStateHash(), second.getStateHash());
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void matchesFixedTimestepStepBall() {
+        FixedTickBall tickBall = new FixedTickBall(ball, 0);
+        tickBall.advance(500);
+
+        BodyState state = new BodyState(ball);
+        boolean rolling = FixedTimestep.stepBall(state, false, 500);
+
+        assertEquals(FixedTimestep.hash(state, rolling), tickBall.getStateHash());
+    }
+
+    @Test
+    public void differentTicksAreNotEqual() {
+        FixedTickBall early = new FixedTickBall(ball, 0);
+        FixedTickBall late = new FixedTickBall(ball, 1);
+
+        assertEquals(early.getStateHash(), late.getStateHash());
+        assertNotEquals(early, late);
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        FixedTickBall original = new FixedTickBall(ball, 0);
+        FixedTickBall copy = new FixedTickBall(original);
+        copy.advance(1);
+
+        assertEquals(0, original.getTick());
+        assertNotEquals(original.getStateHash(), copy.getStateHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void advanceToEarlierTickThrows() {
+        new FixedTickBall(ball, 10).advanceTo(9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void advanceToTooFarThrows() {
+        new FixedTickBall(ball, 0).advanceTo(Integer.MAX_VALUE + 1L);
+    }
+}
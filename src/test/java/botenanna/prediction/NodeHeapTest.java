@@ -0,0 +1,102 @@
+package botenanna.prediction;
+
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NodeHeapTest {
+
+    @Test
+    public void popsLowestValueFirst() {
+        NodeHeap heap = new NodeHeap(4);
+        heap.push(0, 5);
+        heap.push(1, 2);
+        heap.push(2, 9);
+        heap.push(3, -1);
+
+        assertEquals(3, heap.pop());
+        assertEquals(1, heap.pop());
+        assertEquals(0, heap.pop());
+        assertEquals(2, heap.pop());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void equalValuesPopInIndexOrder() {
+        NodeHeap heap = new NodeHeap(4);
+        heap.push(7, 1);
+        heap.push(2, 1);
+        heap.push(5, 1);
+        heap.push(3, 0);
+
+        assertEquals(3, heap.pop());
+        assertEquals(2, heap.pop());
+        assertEquals(5, heap.pop());
+        assertEquals(7, heap.pop());
+    }
+
+    @Test
+    public void emptyHeapReturnsNoNode() {
+        NodeHeap heap = new NodeHeap(1);
+        assertEquals(-1, heap.peek());
+        assertEquals(-1, heap.pop());
+
+        heap.push(4, 1);
+        heap.clear();
+        assertEquals(0, heap.size());
+        assertEquals(-1, heap.peek());
+    }
+
+    @Test
+    public void growsBeyondCapacity() {
+        NodeHeap heap = new NodeHeap(2);
+        for (int i = 0; i < 100; i++) {
+            heap.push(i, 100 - i);
+        }
+
+        assertEquals(100, heap.size());
+        for (int i = 99; i >= 0; i--) {
+            assertEquals(i, heap.pop());
+        }
+    }
+
+    /** Mixes pushes and pops like a search does, where the top node is often popped and skipped because it is
+     * superseded, and checks the order against a PriorityQueue. */
+    @Test
+    public void orderIsKeptWhenPushesAndPopsAreMixed() {
+        Random random = new Random(3);
+        double[] values = new double[5000];
+        NodeHeap heap = new NodeHeap(16);
+        PriorityQueue<Integer> expected = new PriorityQueue<>(
+                (a, b) -> NodeHeap.isBefore(a, values[a], b, values[b]) ? -1 : (a.equals(b) ? 0 : 1));
+
+        int nodeCount = 0;
+        while (nodeCount < values.length) {
+            // Expand the top node and add its children, some of which have the same value
+            if (!heap.isEmpty()) {
+                assertEquals(expected.peek().intValue(), heap.peek());
+                assertEquals(expected.poll().intValue(), heap.pop());
+            }
+            int children = random.nextInt(8);
+            for (int i = 0; i < children && nodeCount < values.length; i++) {
+                int node = nodeCount++;
+                values[node] = random.nextInt(50);
+                heap.push(node, values[node]);
+                expected.add(node);
+            }
+            // Sometimes the top node was superseded and is skipped
+            if (random.nextBoolean() && !heap.isEmpty()) {
+                assertEquals(expected.poll().intValue(), heap.pop());
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+
+        while (!heap.isEmpty()) {
+            assertEquals(expected.poll().intValue(), heap.pop());
+        }
+        assertTrue(expected.isEmpty());
+    }
+}
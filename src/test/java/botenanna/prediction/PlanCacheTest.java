@@ -0,0 +1,185 @@
+package botenanna.prediction;
+
+import botenanna.game.ActionSet;
+import botenanna.game.BoostPad;
+import botenanna.game.Car;
+import botenanna.math.SteppedTimeLine;
+import botenanna.math.TimeLine;
+import botenanna.math.Vector3;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PlanCacheTest {
+
+    private static final double STEPSIZE = 0.1;
+    /** Cells so large that all states of these tests share one, so only the check tells them apart. */
+    private static final StateQuantizer LARGE_CELLS = new StateQuantizer(1000, 1000, Math.PI, 100);
+
+    private BallTrajectory ballTrajectory;
+    private TimeLine<ActionSet> plan;
+
+    @Before
+    public void setUp() {
+        Rigidbody ball = new Rigidbody();
+        ball.setPosition(new Vector3(0, 2000, 300));
+        ball.setVelocity(new Vector3(0, -500, 0));
+        ballTrajectory = new BallTrajectory(ball);
+
+        SteppedTimeLine<ActionSet> timeLine = new SteppedTimeLine<>();
+        for (int i = 0; i < 10; i++) {
+            timeLine.addTimeStep(i * STEPSIZE, new ActionSet().withThrottle(1).withSteer(i < 5 ? 1 : 0));
+        }
+        plan = timeLine;
+    }
+
+    @Test
+    public void samePlanIsReturnedFromSameState() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        TimeLine<ActionSet> cached = cache.get(carAt(100, 0), "a", STEPSIZE);
+
+        assertNotNull(cached);
+        assertEquals(plan.getItems(), cached.getItems());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void otherIntentionOrStepsizeMisses() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        assertNull(cache.get(carAt(100, 0), "b", STEPSIZE));
+        assertNull(cache.get(carAt(100, 0), "a", STEPSIZE / 2));
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getRejections());
+    }
+
+    @Test
+    public void otherCellMisses() {
+        PlanCache cache = new PlanCache(4, StateQuantizer.DEFAULT);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        assertNull(cache.get(carAt(500, 0), "a", STEPSIZE));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getRejections());
+    }
+
+    @Test
+    public void emptyPlanIsNotCached() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, new SteppedTimeLine<>());
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedPlanIsEvicted() {
+        PlanCache cache = new PlanCache(2, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+        cache.put(carAt(100, 0), "b", STEPSIZE, plan);
+        // Using "a" makes "b" the least recently used
+        assertNotNull(cache.get(carAt(100, 0), "a", STEPSIZE));
+        cache.put(carAt(100, 0), "c", STEPSIZE, plan);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(carAt(100, 0), "b", STEPSIZE));
+        assertNotNull(cache.get(carAt(100, 0), "a", STEPSIZE));
+        assertNotNull(cache.get(carAt(100, 0), "c", STEPSIZE));
+    }
+
+    @Test
+    public void replacingPlanDoesNotEvict() {
+        PlanCache cache = new PlanCache(1, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void smallCarDeviationIsAccepted() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        assertNotNull(cache.get(carAt(100 + PlanCache.MAX_DEVIATION / 2, 0), "a", STEPSIZE));
+        assertEquals(0, cache.getRejections());
+    }
+
+    @Test
+    public void carDeviationAfterCheckStepsIsRejected() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        // Same start position, but the car moves away faster during the checked steps
+        double extraSpeed = 2 * PlanCache.MAX_DEVIATION / (PlanCache.CHECK_STEPS * STEPSIZE);
+        assertNull(cache.get(carAt(100, extraSpeed), "a", STEPSIZE));
+        assertEquals(1, cache.getRejections());
+        assertEquals(1, cache.getMisses());
+
+        // The rejected plan is removed
+        assertEquals(0, cache.size());
+        assertNull(cache.get(carAt(100, 0), "a", STEPSIZE));
+        assertEquals(1, cache.getRejections());
+    }
+
+    @Test
+    public void ballDeviationNowIsRejected() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        Rigidbody movedBall = ballTrajectory.getBall(0);
+        movedBall.setPosition(movedBall.getPosition().plus(new Vector3(2 * PlanCache.MAX_DEVIATION, 0, 0)));
+        ballTrajectory = new BallTrajectory(movedBall);
+
+        assertNull(cache.get(carAt(100, 0), "a", STEPSIZE));
+        assertEquals(1, cache.getRejections());
+    }
+
+    @Test
+    public void ballDeviationAtEndOfPlanIsRejected() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+
+        // The ball starts at the same position, but is somewhere else when the plan ends
+        Rigidbody fasterBall = ballTrajectory.getBall(0);
+        fasterBall.setVelocity(fasterBall.getVelocity().plus(new Vector3(100, 0, 0)));
+        ballTrajectory = new BallTrajectory(fasterBall);
+
+        assertNull(cache.get(carAt(100, 0), "a", STEPSIZE));
+        assertEquals(1, cache.getRejections());
+    }
+
+    @Test
+    public void clearResetsPlansAndMetrics() {
+        PlanCache cache = new PlanCache(4, LARGE_CELLS);
+        cache.put(carAt(100, 0), "a", STEPSIZE, plan);
+        cache.get(carAt(100, 0), "a", STEPSIZE);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getHitRate(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveCapacityThrows() {
+        new PlanCache(0, LARGE_CELLS);
+    }
+
+    /** Helper function that creates a start state with my car on the ground at the given x, driving along the x-axis
+     * with the given speed. */
+    private PlanningState carAt(double x, double speed) {
+        PlanningState state = new PlanningState(ballTrajectory, new BoostPad[0]);
+        state.px = x;
+        state.pz = Car.GROUND_OFFSET;
+        state.vx = speed;
+        state.setYaw(0);
+        return state;
+    }
+}
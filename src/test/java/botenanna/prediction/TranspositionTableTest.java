@@ -0,0 +1,96 @@
+package botenanna.prediction;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void getReturnsStoredNode() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.put(42, 3);
+        table.put(-7, 5);
+
+        assertEquals(3, table.get(42));
+        assertEquals(5, table.get(-7));
+        assertEquals(-1, table.get(43));
+    }
+
+    @Test
+    public void putReplacesNodeWithSameKey() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.put(42, 3);
+        table.put(42, 9);
+
+        assertEquals(9, table.get(42));
+    }
+
+    @Test
+    public void collidingKeysAreKeptApart() {
+        TranspositionTable table = new TranspositionTable(8);
+        // The same low bits, so the keys start probing at the same slot
+        table.put(1, 10);
+        table.put(1 + (1L << 32), 20);
+        table.put(1 + (2L << 32), 30);
+
+        assertEquals(10, table.get(1));
+        assertEquals(20, table.get(1 + (1L << 32)));
+        assertEquals(30, table.get(1 + (2L << 32)));
+    }
+
+    @Test
+    public void growsAndKeepsEntries() {
+        TranspositionTable table = new TranspositionTable(8);
+        for (int i = 0; i < 1000; i++) {
+            table.put(i * 0x9E3779B97F4A7C15L, i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, table.get(i * 0x9E3779B97F4A7C15L));
+        }
+    }
+
+    @Test
+    public void clearRemovesEntries() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.put(42, 3);
+        table.clear();
+
+        assertEquals(-1, table.get(42));
+        table.put(43, 4);
+        assertEquals(4, table.get(43));
+        assertEquals(-1, table.get(42));
+    }
+
+    @Test
+    public void clearAfterGrowingRemovesEntries() {
+        TranspositionTable table = new TranspositionTable(8);
+        for (int i = 0; i < 100; i++) {
+            table.put(i, i);
+        }
+        table.clear();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(-1, table.get(i));
+        }
+    }
+
+    /** Entries from the first generation must not come back when the generation counter wraps around to it. */
+    @Test
+    public void entriesDoNotReappearWhenGenerationWrapsAround() {
+        TranspositionTable table = new TranspositionTable(8);
+        table.put(42, 3);
+
+        // The first generation is 1, and the counter wraps when it reaches Integer.MAX_VALUE
+        for (int i = 1; i < Integer.MAX_VALUE; i++) {
+            table.clear();
+        }
+
+        assertEquals(-1, table.get(42));
+        table.put(43, 4);
+        assertEquals(4, table.get(43));
+        table.clear();
+        assertEquals(-1, table.get(43));
+    }
+}